@@ -0,0 +1,83 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.auditing.AuditingHandler;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
+import org.springframework.data.mapping.context.PersistentEntities;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import study.datajpa.entity.AuditListener;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 감사(Auditing) 필드 채우기 비용 비교 - gc 프로파일러의 gc.alloc.rate.norm (연산당 할당 바이트)을 본다.
+ *
+ * - springAuditingHandler : 기존 방식 (AuditingEntityListener 가 사용하는 AuditingHandler + 쓸 때마다 UUID 생성)
+ * - auditListener : AuditListener (클래스별 필드 캐시 + 트랜잭션당 등록자 한 번 조회)
+ * - saveAllBatched : 회원 BATCH_SIZE 명 배치 저장 (회원 1명당 수치로 표시)
+ */
+@State(Scope.Thread)
+public class AuditingBenchmark {
+
+    private static final int BATCH_SIZE = 50;
+
+    private AuditingHandler auditingHandler;
+    private AuditListener auditListener;
+    private PlatformTransactionManager transactionManager;
+    private TransactionStatus transaction;
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp(RepositoryState state) {
+        auditingHandler = new AuditingHandler(PersistentEntities.of(state.context.getBean(JpaMetamodelMappingContext.class)));
+        auditingHandler.setAuditorAware(() -> Optional.of(UUID.randomUUID().toString()));
+
+        auditListener = state.context.getAutowireCapableBeanFactory().createBean(AuditListener.class);
+        transactionManager = state.context.getBean(PlatformTransactionManager.class);
+    }
+
+    // 실제 저장처럼 트랜잭션 안에서 실행한다. (등록자는 트랜잭션당 한 번만 조회)
+    @Setup(Level.Iteration)
+    public void beginTransaction() {
+        transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+    }
+
+    @TearDown(Level.Iteration)
+    public void endTransaction() {
+        transactionManager.rollback(transaction);
+    }
+
+    @Benchmark
+    public Member springAuditingHandler() {
+        return auditingHandler.markCreated(new Member("audit", 20));
+    }
+
+    @Benchmark
+    public Member auditListener() {
+        Member member = new Member("audit", 20);
+        auditListener.touchForCreate(member);
+        return member;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int saveAllBatched(RepositoryState state) {
+        List<Member> members = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            members.add(new Member("batch" + sequence++, 20));
+        }
+        return state.memberRepository.saveAllBatched(members, BATCH_SIZE);
+    }
+}
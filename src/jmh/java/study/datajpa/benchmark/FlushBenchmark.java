@@ -0,0 +1,64 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+/**
+ * 영속성 컨텍스트가 클 때 flush 비용 - 회원 MEMBER_COUNT 명 + 팀 TEAM_COUNT 개를 올려두고 flush 만 잰다.
+ * 바이트코드 향상 전후 비교: ./gradlew jmh -PenhanceEntities=false / ./gradlew jmh
+ * (시간만 비교한다. gc 프로파일러의 할당량에는 매번 다시 조회하는 비용(Level.Invocation)도 들어간다.)
+ *
+ * - flushClean : 바뀐 엔티티 없음 (더티 체크 비용만)
+ * - flushOneDirty : 회원 1명 나이 변경 (더티 체크 + update 1건)
+ */
+@State(Scope.Thread)
+public class FlushBenchmark {
+
+    private PlatformTransactionManager transactionManager;
+    private EntityManager em;
+    private TransactionStatus transaction;
+    private List<Member> members;
+
+    @Setup(Level.Trial)
+    public void setUp(RepositoryState state) {
+        transactionManager = state.context.getBean(PlatformTransactionManager.class);
+        em = SharedEntityManagerCreator.createSharedEntityManager(state.context.getBean(EntityManagerFactory.class));
+    }
+
+    // 조회는 측정에서 뺀다.
+    @Setup(Level.Invocation)
+    public void load() {
+        transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        members = em.createQuery("select m from Member m join fetch m.team", Member.class).getResultList();
+    }
+
+    @TearDown(Level.Invocation)
+    public void rollback() {
+        transactionManager.rollback(transaction);
+    }
+
+    @Benchmark
+    public void flushClean() {
+        em.flush();
+    }
+
+    @Benchmark
+    public void flushOneDirty() {
+        Member member = members.get(0);
+        member.setAge(member.getAge() + 1);
+        em.flush();
+    }
+}
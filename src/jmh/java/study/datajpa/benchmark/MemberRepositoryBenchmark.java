@@ -0,0 +1,147 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberCursor;
+import study.datajpa.repository.MemberProjection;
+import study.datajpa.repository.MemberSpec;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UsernameOnly;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * MemberRepository 주요 조회/저장 경로 벤치마크.
+ * 결과는 연산당 처리량, 지연시간 백분위(sample 모드), 할당량(gc 프로파일러)으로 비교한다.
+ */
+@State(Scope.Thread)
+public class MemberRepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int DEEP_PAGE = 90; // 900번째 회원부터
+    private static final int TEAM_PAGE_SIZE = RepositoryState.MEMBER_COUNT / RepositoryState.TEAM_COUNT;
+
+    private int saveSequence;
+
+    private static int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(RepositoryState.MEMBER_COUNT);
+    }
+
+    @Benchmark
+    public Member save(RepositoryState state) {
+        return state.memberRepository.save(new Member("saved" + saveSequence++, 20));
+    }
+
+    @Benchmark
+    public Optional<Member> findById(RepositoryState state) {
+        return state.memberRepository.findById((long) randomIndex() + 1);
+    }
+
+    // findByUsername 3가지 방식 비교 - NamedQuery(쿼리 캐시 포함) / 메소드 이름 / @Query
+    @Benchmark
+    public List<Member> findByUsernameNamedQuery(RepositoryState state) {
+        return state.memberRepository.findByUsername(RepositoryState.username(randomIndex()));
+    }
+
+    @Benchmark
+    public List<Member> findByUsernameDerived(RepositoryState state) {
+        return state.memberRepository.findListByUsername(RepositoryState.username(randomIndex()));
+    }
+
+    @Benchmark
+    public List<Member> findByUsernameQueryAnnotation(RepositoryState state) {
+        int i = randomIndex();
+        return state.memberRepository.findMember(RepositoryState.username(i), i % 100);
+    }
+
+    // 전체 회원 + 팀 이름 - DTO 로 바로 조회 vs 엔티티(페치 조인)로 조회 후 변환
+    @Benchmark
+    public List<MemberDto> findMemberDto(RepositoryState state) {
+        return state.memberRepository.findMemberDto();
+    }
+
+    @Benchmark
+    public List<Member> findMemberEntity(RepositoryState state) {
+        return state.memberRepository.findMemberFetchJoin();
+    }
+
+    // 인터페이스 기반 Projections
+    @Benchmark
+    public List<UsernameOnly> projectionUsernameOnly(RepositoryState state) {
+        return state.memberRepository.findProjectionsByUsername(RepositoryState.username(randomIndex()), UsernameOnly.class);
+    }
+
+    @Benchmark
+    public List<NestedClosedProjections> projectionNested(RepositoryState state) {
+        return state.memberRepository.findProjectionsByUsername(RepositoryState.username(randomIndex()), NestedClosedProjections.class);
+    }
+
+    // 네이티브 쿼리 + 인터페이스 Projections - 한 페이지 1000건
+    @Benchmark
+    public Page<MemberProjection> nativeProjectionPage(RepositoryState state) {
+        return state.memberRepository.findByNativeProjection(PageRequest.of(0, RepositoryState.MEMBER_COUNT));
+    }
+
+    // 동적 검색 - Specification(매번 Criteria 생성 + 렌더링) vs 조건 모양별 JPQL 재사용
+    @Benchmark
+    public List<Member> specification(RepositoryState state) {
+        int i = randomIndex();
+        Specification<Member> spec = MemberSpec.username(RepositoryState.username(i))
+                .and(MemberSpec.teamName("team" + (i % RepositoryState.TEAM_COUNT)));
+        return state.memberRepository.findAll(spec);
+    }
+
+    @Benchmark
+    public List<Member> searchCondition(RepositoryState state) {
+        int i = randomIndex();
+        return state.memberRepository.search(
+                new MemberSearchCondition(RepositoryState.username(i), "team" + (i % RepositoryState.TEAM_COUNT)));
+    }
+
+    @Benchmark
+    public Page<Member> specificationPaged(RepositoryState state) {
+        Specification<Member> spec = MemberSpec.teamName("team" + randomIndex() % RepositoryState.TEAM_COUNT);
+        return state.memberRepository.findAll(spec, PageRequest.of(1, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Page<Member> searchConditionPaged(RepositoryState state) {
+        MemberSearchCondition condition = new MemberSearchCondition(null, "team" + randomIndex() % RepositoryState.TEAM_COUNT);
+        return state.memberRepository.search(condition, PageRequest.of(1, PAGE_SIZE));
+    }
+
+    // Specification 페이징 + MemberDto - 엔티티 조회 후 변환 vs 필요한 컬럼만 DTO 로 조회 (팀 100명 한 페이지)
+    @Benchmark
+    public Page<MemberDto> specificationEntityToDto(RepositoryState state) {
+        Specification<Member> spec = MemberSpec.teamName("team" + randomIndex() % RepositoryState.TEAM_COUNT);
+        return state.readOnlyTx.execute(status ->
+                state.memberRepository.findAll(spec, PageRequest.of(0, TEAM_PAGE_SIZE)).map(MemberDto::new));
+    }
+
+    @Benchmark
+    public Page<MemberDto> specificationDto(RepositoryState state) {
+        Specification<Member> spec = MemberSpec.teamName("team" + randomIndex() % RepositoryState.TEAM_COUNT);
+        return state.memberRepository.findMemberDtos(spec, PageRequest.of(0, TEAM_PAGE_SIZE), true);
+    }
+
+    // 깊은 페이지 - OFFSET 페이징(count 포함) vs 키셋 페이징
+    @Benchmark
+    public Page<Member> offsetPaging(RepositoryState state) {
+        return state.memberRepository.findAll(PageRequest.of(DEEP_PAGE, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public CursorPage<Member> cursorPaging(RepositoryState state) {
+        return state.memberRepository.findMemberPage(MemberCursor.encode((long) DEEP_PAGE * PAGE_SIZE), PAGE_SIZE);
+    }
+}
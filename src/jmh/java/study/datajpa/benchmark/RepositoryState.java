@@ -0,0 +1,75 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크용 스프링 컨텍스트 - 임베디드(in-memory) H2 에 회원 MEMBER_COUNT 명, 팀 TEAM_COUNT 개를 넣어두고 시작한다.
+ * 애플리케이션 설정(application.yml)은 그대로 쓰고, DB 와 로그만 벤치마크용으로 바꾼다.
+ */
+@State(Scope.Benchmark)
+public class RepositoryState {
+
+    public static final int MEMBER_COUNT = 1_000;
+    public static final int TEAM_COUNT = 10;
+
+    public ConfigurableApplicationContext context;
+    public MemberRepository memberRepository;
+    public TeamRepository teamRepository;
+    public TransactionTemplate readOnlyTx; // 엔티티를 DTO 로 바꾸는 동안 지연 로딩이 되도록
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpringApplication application = new SpringApplication(DataJpaApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        // 커맨드라인 인자로 넘겨야 application.yml 보다 우선한다.
+        context = application.run(
+                "--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                "--decorator.datasource.enabled=false", // p6spy 로깅 비용 제외
+                "--logging.level.root=warn",
+                "--logging.level.org.hibernate.SQL=warn");
+
+        memberRepository = context.getBean(MemberRepository.class);
+        teamRepository = context.getBean(TeamRepository.class);
+        readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < TEAM_COUNT; i++) {
+            teams.add(teamRepository.save(new Team("team" + i)));
+        }
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            Member member = new Member(username(i), i % 100);
+            member.setTeam(teams.get(i % TEAM_COUNT));
+            members.add(member);
+        }
+        memberRepository.saveAllBatched(members, 100);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public static String username(int i) {
+        return "member" + i;
+    }
+}
@@ -4,12 +4,14 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
-import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import study.datajpa.config.TransactionScopedAuditorAware;
 
+import java.nio.ByteBuffer;
+import java.util.Base64;
 import java.util.Optional;
 import java.util.UUID;
 
-@EnableJpaAuditing // Spring Data JPA가 제공하는 Auditing 기능을 사용하기 위한 설정
+// 감사(Auditing) 필드는 엔티티 리스너(AuditListener)가 직접 채우므로 @EnableJpaAuditing 은 사용하지 않는다.
 @SpringBootApplication
 public class DataJpaApplication {
 
@@ -17,10 +19,19 @@ public class DataJpaApplication {
 		SpringApplication.run(DataJpaApplication.class, args);
 	}
 
-	// Spring Data JPA가 제공하는 Auditing 기능 중 사용자와 수정자 기능을 사용하기 위한 설정
+	// 등록자와 수정자 값을 제공하는 설정
 	@Bean
-	public AuditorAware<String> auditorProvider() { // 등록 및 수정이 발생할 때 마다 이 메소드가 호출돼서 값이 채워진다.
-		return () -> Optional.of(UUID.randomUUID().toString());
+	public AuditorAware<String> auditorProvider() { // 트랜잭션마다 한 번만 호출돼서, 그 트랜잭션의 등록/수정에 같은 값이 채워진다.
+		return new TransactionScopedAuditorAware<>(() -> Optional.of(compactUuid()));
+	}
+
+	// UUID 를 36자 문자열 대신 22자 base64(URL safe)로 표현한다.
+	private static String compactUuid() {
+		UUID uuid = UUID.randomUUID();
+		ByteBuffer bytes = ByteBuffer.allocate(16)
+				.putLong(uuid.getMostSignificantBits())
+				.putLong(uuid.getLeastSignificantBits());
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.array());
 	}
 
 }
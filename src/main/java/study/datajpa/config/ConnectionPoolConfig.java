@@ -0,0 +1,65 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import javax.sql.DataSource;
+
+/**
+ * 커넥션 풀(HikariCP) 크기 자동 계산 + 메트릭 (설정값은 application.yml 의 spring.datasource.hikari, app.datasource.pool)
+ *
+ * 스프링 부트가 등록하는 hikaricp.connections.* 메트릭
+ * - acquire(커넥션 획득 대기 시간), usage(점유 시간), creation, timeout
+ * - active / idle / pending(커넥션을 기다리는 스레드 수) / max / min
+ * 여기에 repository.connection.hold (리포지토리 메서드별 점유 시간)를 추가한다. -> 커넥션을 오래 잡는 메서드를 찾는다.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ConnectionPoolProperties.class)
+public class ConnectionPoolConfig {
+
+    // maximum-pool-size 를 지정하지 않은 풀은 CPU 코어 수와 DB 커넥션 한도로 크기를 정한다.
+    // 바인딩(@ConfigurationProperties)이 끝난 뒤, 풀이 시작되기 전에 적용해야 하므로 BeanPostProcessor 로 등록한다.
+    @Bean
+    public static BeanPostProcessor connectionPoolSizer(ObjectProvider<ConnectionPoolProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource) {
+                    HikariDataSource hikari = DataSourceUnwrapper.unwrap((DataSource) bean, HikariConfigMXBean.class, HikariDataSource.class);
+                    if (hikari != null && hikari.getMaximumPoolSize() <= 0) { // 지정하지 않으면 -1
+                        int maximumPoolSize = properties.getObject().maximumPoolSize(Runtime.getRuntime().availableProcessors());
+                        hikari.setMaximumPoolSize(maximumPoolSize);
+                        log.info("커넥션 풀 {} 최대 크기: {}", hikari.getPoolName() != null ? hikari.getPoolName() : beanName, maximumPoolSize);
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    // 스프링 부트의 Hikari 메트릭 등록(MeterBinder)은 MetricsTrackerFactory 가 이미 있으면 건너뛴다.
+    // -> 부트보다 먼저 실행해서 부트와 같은 Micrometer 트래커를 감싼 팩토리를 등록한다.
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public MeterBinder repositoryConnectionMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.forEach(dataSource -> {
+            HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class);
+            if (hikari != null && hikari.getMetricRegistry() == null && hikari.getMetricsTrackerFactory() == null) {
+                hikari.setMetricsTrackerFactory(new RepositoryConnectionMetricsTrackerFactory(
+                        new MicrometerMetricsTrackerFactory(registry), registry));
+            }
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 커넥션 풀 크기 자동 계산 설정. spring.datasource.hikari.maximum-pool-size 를 직접 지정하면 사용하지 않는다.
+ *
+ * 크기 = min(CPU 코어 수 * 2 + effectiveSpindleCount, dbMaxConnections / instances)
+ * (HikariCP "About Pool Sizing" 공식 - 커넥션이 많다고 DB 처리량이 늘지 않는다.)
+ */
+@Getter
+@Setter
+@ConfigurationProperties("app.datasource.pool")
+public class ConnectionPoolProperties {
+
+    private int effectiveSpindleCount = 1; // 동시에 I/O 를 처리할 수 있는 디스크 수 (SSD/데이터가 메모리에 다 올라가 있으면 1 정도)
+    private int dbMaxConnections = 100; // DB 가 허용하는 최대 커넥션 수 (ex. MySQL max_connections)
+    private int instances = 1; // 같은 DB 를 사용하는 애플리케이션 인스턴스 수 -> DB 한도를 나눠 쓴다.
+
+    public int maximumPoolSize(int availableProcessors) {
+        int bySystem = availableProcessors * 2 + effectiveSpindleCount;
+        int byDatabase = dbMaxConnections / Math.max(1, instances);
+        return Math.max(1, Math.min(bySystem, byDatabase));
+    }
+}
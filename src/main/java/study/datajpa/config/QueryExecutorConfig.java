@@ -0,0 +1,113 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 조회 쿼리를 요청 스레드와 동시에 실행하기 위한 전용 실행기.
+ * 스레드 하나가 커넥션 하나를 사용하므로, 커넥션 풀을 다 잡아먹지 않도록 동시 실행 수를 제한한다.
+ *
+ * - @Async("queryExecutor") 가 붙은 리포지토리 메서드 (CompletableFuture 반환)
+ * - PageCountCache 의 비동기 count, findByNames 의 병렬 조회
+ *
+ * 동시 실행 수(pool-size)를 정하지 않으면 커넥션 풀 최대 크기의 절반을 사용한다. (나머지는 요청 스레드 몫)
+ * virtual-threads: true 이고 JDK 21 이상이면 가상 스레드로 실행하고, 동시 실행 수만 같은 값으로 제한한다.
+ */
+@EnableAsync
+@Configuration
+public class QueryExecutorConfig {
+
+    @Bean
+    public AsyncTaskExecutor queryExecutor(DataSource dataSource,
+                                           @Value("${app.query-executor.pool-size:0}") int poolSize,
+                                           @Value("${app.query-executor.queue-capacity:100}") int queueCapacity,
+                                           @Value("${app.query-executor.virtual-threads:false}") boolean virtualThreads) {
+        int concurrency = poolSize > 0 ? poolSize : Math.max(1, maximumPoolSize(dataSource) / 2);
+
+        ThreadFactory virtualThreadFactory = virtualThreads ? VirtualThreads.factory("query-") : null;
+        if (virtualThreadFactory != null) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(virtualThreadFactory);
+            executor.setConcurrencyLimit(concurrency); // 한도를 넘으면 제출한 스레드가 기다린다.
+            executor.setTaskDecorator(new ContextCopyingDecorator());
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("query-");
+        executor.setTaskDecorator(new ContextCopyingDecorator());
+        return executor;
+    }
+
+    static int maximumPoolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                int maximumPoolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+                if (maximumPoolSize > 0) { // 설정하지 않았으면 풀이 만들어지기 전까지 -1 이다.
+                    return maximumPoolSize;
+                }
+            }
+        } catch (SQLException e) {
+            // 풀 크기를 알 수 없으면 Hikari 기본값을 사용한다.
+        }
+        return 10;
+    }
+
+    // Executor 빈을 하나라도 등록하면 스프링 부트가 기본 applicationTaskExecutor 를 만들지 않는다.
+    // (StreamingResponseBody 같은 MVC 비동기 처리가 이 실행기를 사용하므로 부트와 같은 방식으로 직접 등록한다.)
+    @Lazy
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * 요청 스레드의 로그 MDC 와 Locale 을 쿼리 스레드로 복사한다.
+     * 트랜잭션/영속성 컨텍스트는 스레드에 묶여 있어서 넘어가지 않는다. -> 비동기 메서드는 자기 읽기 전용 트랜잭션에서 실행된다.
+     */
+    static class ContextCopyingDecorator implements TaskDecorator {
+
+        @Override
+        public Runnable decorate(Runnable runnable) {
+            Map<String, String> mdc = MDC.getCopyOfContextMap();
+            LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+            return () -> {
+                Map<String, String> previous = MDC.getCopyOfContextMap();
+                if (mdc != null) {
+                    MDC.setContextMap(mdc);
+                }
+                LocaleContextHolder.setLocaleContext(localeContext);
+                try {
+                    runnable.run();
+                } finally {
+                    LocaleContextHolder.resetLocaleContext();
+                    if (previous != null) {
+                        MDC.setContextMap(previous);
+                    } else {
+                        MDC.clear();
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * app.datasource.replica.url 이 있으면 primary / replica 커넥션 풀을 따로 만들고,
+ * 읽기 전용 트랜잭션은 replica 로 보내는 DataSource 를 등록한다. (스프링 부트 기본 DataSource 대신 사용)
+ *
+ * 스프링 데이터 JPA 의 조회 메서드는 @Transactional(readOnly = true) 로 실행되므로
+ * 하이버네이트 세션도 읽기 전용(스냅샷 X) + FlushMode.MANUAL 로 동작한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "url")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    // primary 와 같은 풀 설정(spring.datasource.hikari - 타임아웃, 누수 감지, 드라이버 설정 등)에서 시작하고,
+    // app.datasource.replica.hikari.* 로 덮어쓴다.
+    // 복제본이 죽었을 때 오래 기다리지 않도록 connection-timeout 기본값은 1초다. (죽으면 상태 확인 후 primary 로 보낸다)
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                              DataSourceProperties properties, ReplicaDataSourceProperties replica) {
+        HikariDataSource dataSource = new HikariDataSource();
+        primaryDataSource.copyStateTo(dataSource);
+        dataSource.setJdbcUrl(replica.getUrl());
+        dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : properties.determineUsername());
+        dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : properties.determinePassword());
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        dataSource.setConnectionTimeout(1000);
+        return dataSource;
+    }
+
+    // 빈으로 등록해서 상태 확인 스레드를 컨텍스트와 함께 시작/종료한다.
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                                             @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+                                                             ReplicaDataSourceProperties replica) {
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource,
+                replica.getLagQuery(), replica.getMaxLag(), replica.getCheckInterval(), replica.getCheckTimeout());
+    }
+
+    // p6spy 가 이 프록시를 감싸면 트랜잭션 시작 시점에 커넥션을 꺼내 버려서 라우팅이 안 된다.
+    // -> decorator.datasource.exclude-beans 로 제외하고, 실제 커넥션 풀(primary, replica)만 감싼다.
+    @Bean
+    @Primary
+    public DataSource routingDataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,28 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 읽기 전용 복제본(replica) 설정. url 이 있을 때만 ReplicaDataSourceConfig 가 동작한다.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("app.datasource.replica")
+public class ReplicaDataSourceProperties {
+
+    private String url;
+    private String username; // 없으면 spring.datasource.username 을 사용
+    private String password; // 없으면 spring.datasource.password 를 사용
+
+    // 복제 지연(초)을 반환하는 쿼리. 없으면 연결이 되는지만 확인한다.
+    // ex) PostgreSQL: select extract(epoch from now() - pg_last_xact_replay_timestamp())
+    private String lagQuery;
+
+    private Duration maxLag = Duration.ofSeconds(5); // 이보다 뒤처지면 읽기 요청도 primary 로 보낸다.
+    private Duration checkInterval = Duration.ofSeconds(5); // 복제본 상태 확인 주기 (백그라운드)
+    private Duration checkTimeout = Duration.ofSeconds(1); // 상태 확인 쿼리 타임아웃 (JDBC 는 초 단위, 최소 1초)
+}
@@ -0,0 +1,114 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 복제본으로, 나머지는 primary 로 보낸다.
+ *
+ * 트랜잭션 시작 시점에는 아직 readOnly 여부가 동기화 매니저에 등록되기 전이므로,
+ * 반드시 LazyConnectionDataSourceProxy 로 감싸서 첫 SQL 실행 시점에 커넥션을 고르도록 해야 한다.
+ *
+ * 복제본이 죽었거나 maxLag 이상 뒤처져 있으면 읽기 요청도 primary 로 보낸다.
+ * 상태 확인은 백그라운드 스레드가 checkInterval 마다 수행하고, 요청 스레드는 마지막 결과만 읽는다.
+ * (복제본이 응답하지 않아도 요청이 상태 확인을 기다리지 않는다.)
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    enum Route {PRIMARY, REPLICA}
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+    private final long checkIntervalNanos;
+    private final int checkTimeoutSeconds;
+
+    private volatile boolean replicaAvailable = true;
+    private ScheduledExecutorService checker;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica,
+                                    String lagQuery, Duration maxLag, Duration checkInterval, Duration checkTimeout) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.checkIntervalNanos = checkInterval.toNanos();
+        this.checkTimeoutSeconds = (int) Math.max(1, checkTimeout.toSeconds()); // JDBC 타임아웃은 초 단위
+
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        if (checker == null) {
+            checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "replica-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            checker.scheduleWithFixedDelay(this::refreshReplicaAvailability, 0, checkIntervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaAvailable) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+
+    void refreshReplicaAvailability() {
+        boolean available;
+        try {
+            available = checkReplica();
+        } catch (RuntimeException e) {
+            log.warn("replica 상태 확인 실패", e); // 예외가 나가면 다음 확인이 예약되지 않는다.
+            available = false;
+        }
+        if (available != replicaAvailable) {
+            log.warn("replica {} -> 읽기 요청을 {} 로 보냅니다.", available ? "복구" : "사용 불가", available ? "replica" : "primary");
+        }
+        replicaAvailable = available;
+    }
+
+    // 커넥션 획득은 replica 풀의 connection-timeout, 확인 쿼리는 checkTimeout 안에 끝나야 한다.
+    private boolean checkReplica() {
+        try (Connection con = replica.getConnection()) {
+            if (lagQuery == null) {
+                return con.isValid(checkTimeoutSeconds);
+            }
+            try (Statement stmt = con.createStatement()) {
+                stmt.setQueryTimeout(checkTimeoutSeconds);
+                try (ResultSet rs = stmt.executeQuery(lagQuery)) {
+                    return rs.next() && rs.getDouble(1) <= maxLagSeconds;
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("replica 상태 확인 실패", e);
+            return false;
+        }
+    }
+}
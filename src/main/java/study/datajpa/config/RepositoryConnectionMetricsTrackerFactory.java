@@ -0,0 +1,89 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HikariCP 기본 메트릭(hikaricp.connections.*)에 더해서, 커넥션을 빌렸다가 반납할 때까지의 시간을 리포지토리 메서드별로 기록한다.
+ *
+ * - repository.connection.hold : 커넥션 점유 시간 (태그: pool, repository, method)
+ *
+ * 커넥션을 반납하는 시점에 실행 중인 리포지토리 메서드(RepositoryMethodScope)에 기록한다.
+ * 리포지토리 메서드가 시작한 트랜잭션은 메서드 안에서 커밋/반납되므로 그 메서드의 점유 시간이 되고,
+ * 서비스 트랜잭션이나 OSIV 처럼 리포지토리 밖에서 반납하면 repository=none, method=none 으로 기록한다.
+ */
+public class RepositoryConnectionMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private final MetricsTrackerFactory delegate;
+    private final MeterRegistry registry;
+
+    public RepositoryConnectionMetricsTrackerFactory(MetricsTrackerFactory delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new Tracker(delegate.create(poolName, poolStats), poolName);
+    }
+
+    private class Tracker implements IMetricsTracker {
+
+        private final IMetricsTracker delegate;
+        private final String poolName;
+        private final Map<RepositoryMethodScope.Current, Timer> holdTimers = new ConcurrentHashMap<>();
+        private final Timer outsideRepositoryTimer;
+
+        Tracker(IMetricsTracker delegate, String poolName) {
+            this.delegate = delegate;
+            this.poolName = poolName;
+            this.outsideRepositoryTimer = holdTimer(RepositoryMethodScope.NONE, RepositoryMethodScope.NONE);
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            delegate.recordConnectionCreatedMillis(connectionCreatedMillis);
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            delegate.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            delegate.recordConnectionUsageMillis(elapsedBorrowedMillis);
+
+            RepositoryMethodScope.Current current = RepositoryMethodScope.current();
+            Timer timer = current == null ? outsideRepositoryTimer
+                    : holdTimers.computeIfAbsent(current, method -> holdTimer(method.getRepository(), method.getMethod()));
+            timer.record(elapsedBorrowedMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            delegate.recordConnectionTimeout();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        private Timer holdTimer(String repository, String method) {
+            return Timer.builder("repository.connection.hold")
+                    .description("리포지토리 메서드가 커넥션을 점유한 시간")
+                    .tag("pool", poolName)
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .register(registry);
+        }
+    }
+}
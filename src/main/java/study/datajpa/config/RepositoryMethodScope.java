@@ -0,0 +1,66 @@
+package study.datajpa.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 현재 스레드에서 실행 중인 (가장 바깥) 리포지토리 메서드를 기억한다.
+ * 트랜잭션 인터셉터보다 바깥에서 실행되므로, 리포지토리 메서드가 시작한 트랜잭션의 커넥션 반납까지 이 범위 안에서 일어난다.
+ * -> RepositoryConnectionMetricsTrackerFactory 가 커넥션 사용 시간을 메서드별로 나눠서 기록한다.
+ */
+public class RepositoryMethodScope implements MethodInterceptor {
+
+    public static final String NONE = "none";
+
+    private static final ThreadLocal<RepositoryMethodScope.Current> CURRENT = new ThreadLocal<>();
+
+    private final String repositoryName;
+    private final Map<Method, Current> methods = new ConcurrentHashMap<>();
+
+    public RepositoryMethodScope(Class<?> repositoryInterface) {
+        this.repositoryName = repositoryInterface.getSimpleName();
+    }
+
+    /**
+     * @return 실행 중인 리포지토리 메서드, 리포지토리 밖(서비스 트랜잭션, OSIV 등)이면 null
+     */
+    public static Current current() {
+        return CURRENT.get();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (CURRENT.get() != null) { // 리포지토리 안에서 다른 리포지토리를 호출하면 바깥 메서드로 기록한다.
+            return invocation.proceed();
+        }
+        CURRENT.set(methods.computeIfAbsent(invocation.getMethod(), method -> new Current(repositoryName, method.getName())));
+        try {
+            return invocation.proceed();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    public static class Current {
+
+        private final String repository;
+        private final String method;
+
+        Current(String repository, String method) {
+            this.repository = repository;
+            this.method = method;
+        }
+
+        public String getRepository() {
+            return repository;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+    }
+}
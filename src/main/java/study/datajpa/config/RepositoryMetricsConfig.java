@@ -0,0 +1,43 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.util.function.SingletonSupplier;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 모든 스프링 데이터 리포지토리 프록시에 RepositoryMetricsInterceptor 를 추가한다.
+ * 트랜잭션 인터셉터보다 안쪽에서 실행되므로 트랜잭션 안에서 측정한다.
+ *
+ * RepositoryMethodScope 는 맨 바깥에 추가해서, 리포지토리 메서드가 연 트랜잭션의 커넥션 반납까지 감싼다.
+ */
+@Configuration
+public class RepositoryMetricsConfig {
+
+    // BeanPostProcessor 는 다른 빈보다 먼저 만들어지므로 static 으로 등록하고, 의존 빈은 실제로 필요할 때 꺼낸다.
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                   ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+                                proxyFactory.addAdvice(0, new RepositoryMethodScope(repositoryInformation.getRepositoryInterface()));
+                                proxyFactory.addAdvice(new RepositoryMetricsInterceptor(
+                                        SingletonSupplier.of(meterRegistry::getObject),
+                                        entityManagerFactory.getObject(),
+                                        repositoryInformation.getRepositoryInterface()));
+                            }));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,141 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.BaseStream;
+
+/**
+ * 리포지토리 메서드 호출마다 아래 메트릭을 기록한다. (태그: repository, method)
+ *
+ * - repository.invocations : 실행 시간
+ * - repository.rows : 반환한 행(엔티티/DTO) 개수 - 컬렉션, Page/Slice, Optional, 단건
+ * - repository.statements : 호출 한 번에 실행된 SQL 개수 (N + 1 감지)
+ * - repository.persistence.context.size : 호출이 끝난 시점의 영속성 컨텍스트 엔티티 수 (트랜잭션이나 OSIV 로 EntityManager 가 이미 열려 있을 때만)
+ *
+ * 메서드별 Meter 는 처음 한 번만 만들어서 재사용하므로, 호출마다 추가 비용은 타이머 기록 정도다.
+ */
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    private final Supplier<MeterRegistry> registry;
+    private final EntityManagerFactory entityManagerFactory;
+    private final String repositoryName;
+    private final Map<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsInterceptor(Supplier<MeterRegistry> registry, EntityManagerFactory entityManagerFactory,
+                                        Class<?> repositoryInterface) {
+        this.registry = registry;
+        this.entityManagerFactory = entityManagerFactory;
+        this.repositoryName = repositoryInterface.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MethodMeters methodMeters = meters.computeIfAbsent(invocation.getMethod(), this::createMeters);
+
+        long statementsBefore = StatementCountInspector.current();
+        long start = System.nanoTime();
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } finally {
+            methodMeters.time.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            methodMeters.statements.record(StatementCountInspector.current() - statementsBefore);
+
+            long rows = countRows(result);
+            if (rows >= 0) {
+                methodMeters.rows.record(rows);
+            }
+
+            // 이미 스레드에 묶인 EntityManager 만 확인한다.
+            // (EntityManagerFactoryUtils.getTransactionalEntityManager 는 트랜잭션 동기화 중이면 없을 때 새로 만들어서 묶는다.)
+            EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(entityManagerFactory);
+            if (holder != null) {
+                methodMeters.persistenceContextSize.record(holder.getEntityManager().unwrap(SessionImplementor.class)
+                        .getPersistenceContext()
+                        .getNumberOfManagedEntities());
+            }
+        }
+    }
+
+    /**
+     * @return 반환한 행 개수, 셀 수 없는 반환 타입(Stream, Future, 숫자 등)은 -1
+     */
+    private static long countRows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof BaseStream || result instanceof Future || result instanceof Number || result instanceof Boolean) {
+            return -1;
+        }
+        return 1; // 단건 조회
+    }
+
+    private MethodMeters createMeters(Method method) {
+        MeterRegistry meterRegistry = registry.get();
+        String methodName = method.getName();
+
+        return new MethodMeters(
+                Timer.builder("repository.invocations")
+                        .description("리포지토리 메서드 실행 시간")
+                        .tag("repository", repositoryName)
+                        .tag("method", methodName)
+                        .register(meterRegistry),
+                DistributionSummary.builder("repository.rows")
+                        .description("리포지토리 메서드가 반환한 행 개수")
+                        .tag("repository", repositoryName)
+                        .tag("method", methodName)
+                        .register(meterRegistry),
+                DistributionSummary.builder("repository.statements")
+                        .description("리포지토리 메서드 호출 한 번에 실행된 SQL 개수")
+                        .tag("repository", repositoryName)
+                        .tag("method", methodName)
+                        .register(meterRegistry),
+                DistributionSummary.builder("repository.persistence.context.size")
+                        .description("호출 후 영속성 컨텍스트에 있는 엔티티 수")
+                        .tag("repository", repositoryName)
+                        .tag("method", methodName)
+                        .register(meterRegistry));
+    }
+
+    private static class MethodMeters {
+
+        private final Timer time;
+        private final DistributionSummary rows;
+        private final DistributionSummary statements;
+        private final DistributionSummary persistenceContextSize;
+
+        MethodMeters(Timer time, DistributionSummary rows, DistributionSummary statements, DistributionSummary persistenceContextSize) {
+            this.time = time;
+            this.rows = rows;
+            this.statements = statements;
+            this.persistenceContextSize = persistenceContextSize;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package study.datajpa.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 하이버네이트가 SQL 을 준비(prepare)할 때마다 현재 스레드의 카운터를 1 올린다.
+ * 리포지토리 메서드 호출 전후 값을 비교해서 호출 한 번에 실행된 SQL 개수를 구한다. (RepositoryMetricsInterceptor)
+ *
+ * 하이버네이트가 직접 생성하는 클래스라 스프링 빈이 아니다.
+ * -> spring.jpa.properties.hibernate.session_factory.statement_inspector 로 등록한다.
+ */
+public class StatementCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * @return 현재 스레드에서 지금까지 준비된 SQL 개수 (누적값)
+     */
+    public static long current() {
+        return COUNT.get()[0];
+    }
+}
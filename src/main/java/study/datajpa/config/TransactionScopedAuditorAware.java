@@ -0,0 +1,57 @@
+package study.datajpa.config;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+/**
+ * 등록자/수정자를 트랜잭션마다 한 번만 조회한다.
+ * 같은 트랜잭션에서 저장/수정되는 엔티티는 모두 같은 값(같은 인스턴스)을 사용한다.
+ * 트랜잭션 밖에서는 매번 delegate 를 호출한다.
+ */
+public class TransactionScopedAuditorAware<T> implements AuditorAware<T> {
+
+    private final AuditorAware<T> delegate;
+
+    public TransactionScopedAuditorAware(AuditorAware<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<T> getCurrentAuditor() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return delegate.getCurrentAuditor();
+        }
+
+        Optional<T> auditor = (Optional<T>) TransactionSynchronizationManager.getResource(this);
+        if (auditor == null) {
+            auditor = delegate.getCurrentAuditor();
+            bind(auditor);
+        }
+        return auditor;
+    }
+
+    private void bind(Optional<T> auditor) {
+        TransactionSynchronizationManager.bindResource(this, auditor);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // REQUIRES_NEW 로 트랜잭션이 중단되면 새 트랜잭션은 등록자를 새로 조회한다.
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResource(TransactionScopedAuditorAware.this);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(TransactionScopedAuditorAware.this, auditor);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TransactionScopedAuditorAware.this);
+            }
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * virtual 프로필 - 톰캣 요청 처리를 가상 스레드(JDK 21+)에서 실행한다. (설정값은 application-virtual.yml)
+ *
+ * 요청 하나당 가상 스레드 하나를 만들기 때문에 톰캣 스레드 풀(threads.max) 제한이 없어지고,
+ * JDBC 응답을 기다리는 동안에는 캐리어 스레드를 반납해서 다른 요청이 실행된다.
+ *
+ * 고정(pinning) 이 생기는 곳
+ * - 커넥션 풀 획득: HikariCP 는 SynchronousQueue 로 대기하므로 고정되지 않는다. -> 커넥션을 기다리는 요청은 캐리어를 쓰지 않는다.
+ * - H2 JDBC 드라이버: 세션 단위 synchronized 블록 안에서 소켓 I/O 를 한다. -> 커넥션을 쥔 스레드는 쿼리 동안 캐리어에 고정된다.
+ *   동시에 고정될 수 있는 수는 커넥션 풀 최대 크기까지이므로, 캐리어 스레드를 (CPU 코어 수 + 풀 최대 크기) 만큼 둬서
+ *   쿼리 중인 요청이 캐리어를 모두 차지해도 나머지 요청이 멈추지 않게 한다.
+ * 고정 위치는 -Djdk.tracePinnedThreads=short 로 확인한다.
+ */
+@Slf4j
+@Profile("virtual")
+@Configuration
+public class VirtualThreadConfig {
+
+    @Bean
+    public ExecutorService requestExecutor(DataSource dataSource) {
+        // 스케줄러가 만들어지기 전(첫 가상 스레드 생성 전)에 설정해야 한다.
+        int carriers = VirtualThreads.ensureCarrierParallelism(
+                Runtime.getRuntime().availableProcessors() + QueryExecutorConfig.maximumPoolSize(dataSource));
+
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("http-");
+        if (executor == null) {
+            throw new IllegalStateException("virtual 프로필은 JDK 21 이상에서만 사용할 수 있습니다. (현재 "
+                    + System.getProperty("java.version") + ")");
+        }
+        log.info("요청을 가상 스레드에서 실행합니다. (캐리어 스레드 {}개)", carriers);
+        return executor; // 컨테이너 종료 시 shutdown() 이 호출된다.
+    }
+
+    // 톰캣이 자체 스레드 풀 대신 가상 스레드 실행기를 사용하도록 바꾼다.
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService requestExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(requestExecutor);
+    }
+}
@@ -0,0 +1,73 @@
+package study.datajpa.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 가상 스레드(JDK 21+) 지원. 프로젝트는 Java 11 로 컴파일하므로 리플렉션으로 호출한다.
+ */
+final class VirtualThreads {
+
+    static final String PARALLELISM_PROPERTY = "jdk.virtualThreadScheduler.parallelism";
+    static final String MAX_POOL_SIZE_PROPERTY = "jdk.virtualThreadScheduler.maxPoolSize";
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return factory("probe-") != null;
+    }
+
+    /**
+     * @return 가상 스레드 팩토리, 지원하지 않는 JDK 면 null
+     */
+    static ThreadFactory factory(String namePrefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 작업마다 가상 스레드를 하나씩 만드는 실행기 (Executors.newThreadPerTaskExecutor)
+     *
+     * @return 지원하지 않는 JDK 면 null
+     */
+    static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        ThreadFactory factory = factory(namePrefix);
+        if (factory == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 가상 스레드 스케줄러의 캐리어(플랫폼) 스레드 수를 최소 minimum 개로 맞춘다.
+     * synchronized 블록 안에서 I/O 를 하면 가상 스레드가 캐리어에 고정(pinning)되어 캐리어를 반납하지 못한다.
+     * 스케줄러는 첫 가상 스레드를 만들 때 이 값을 읽으므로, 그 전에 호출해야 하고 -D 로 지정한 값이 있으면 건드리지 않는다.
+     *
+     * @return 적용된 캐리어 스레드 수
+     */
+    static int ensureCarrierParallelism(int minimum) {
+        String configured = System.getProperty(PARALLELISM_PROPERTY);
+        if (configured != null) {
+            return Integer.parseInt(configured);
+        }
+        int parallelism = Math.max(Runtime.getRuntime().availableProcessors(), minimum);
+        System.setProperty(PARALLELISM_PROPERTY, String.valueOf(parallelism));
+        if (System.getProperty(MAX_POOL_SIZE_PROPERTY) == null) {
+            System.setProperty(MAX_POOL_SIZE_PROPERTY, String.valueOf(Math.max(256, parallelism)));
+        }
+        return parallelism;
+    }
+}
@@ -1,23 +1,51 @@
 package study.datajpa.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.data.web.SpringDataWebProperties;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.datajpa.dto.CursorPage;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberCursor;
 import study.datajpa.repository.MemberRepository;
 
 import javax.annotation.PostConstruct;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
     private final MemberRepository memberRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final SpringDataWebProperties dataWebProperties;
 
     // 일반 RestAPI로 id 값 요청
     @GetMapping("/members/{id}")
@@ -32,23 +60,102 @@ public class MemberController {
         return member.getUsername();
     }
 
+    // 회원 목록 + 팀 회원 수 - 두 조회를 queryExecutor 에서 동시에 실행하고, 서블릿 스레드는 바로 반납한다.
+    @GetMapping("/members/summary")
+    public CompletableFuture<Map<String, Object>> summary(@RequestParam("username") String username,
+                                                         @RequestParam("teamName") String teamName) {
+        CompletableFuture<List<MemberDto>> members = memberRepository.findAsyncByUsername(username)
+                .thenApply(result -> result.stream().map(MemberDto::new).collect(Collectors.toList()));
+        CompletableFuture<Long> teamMemberCount = memberRepository.countAsyncByTeamName(teamName);
+
+        return members.thenCombine(teamMemberCount, (memberDtos, count) -> Map.of(
+                "members", memberDtos,
+                "teamMemberCount", count));
+    }
+
     // web paging and ordering
     @GetMapping("/members")
     public Page<MemberDto> list(@PageableDefault(size = 5) Pageable pageable) {
-        Page<Member> page = memberRepository.findAll(pageable);
+        Page<Member> page = memberRepository.findPage(pageable); // count 쿼리 생략/캐시
 
         // 엔티티를 노출하면 절 대 노출하면 안된다.
         // 엔티티를 DTO로 바꿔주자!
-        return memberRepository.findAll(pageable)
+        return page.map(MemberDto::new);
+    }
+
+    // 키셋(커서) 페이징 -> /members?cursor= 로 첫 페이지, 이후에는 응답의 nextCursor 를 넘겨준다.
+    // OFFSET 과 count 쿼리가 없어서 깊은 페이지도 첫 페이지와 비용이 같다.
+    // size 는 Pageable 처럼 1 ~ max-page-size 로 맞추고, 잘못된 커서 토큰은 400 으로 응답한다.
+    @GetMapping(value = "/members", params = "cursor")
+    public CursorPage<MemberDto> listByCursor(@RequestParam("cursor") String cursor,
+                                              @RequestParam(value = "size", defaultValue = "5") int size) {
+        try {
+            MemberCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "잘못된 커서 토큰입니다.", e);
+        }
+
+        int pageSize = Math.min(Math.max(size, 1), dataWebProperties.getPageable().getMaxPageSize());
+        return memberRepository.findMemberPage(cursor, pageSize)
                 .map(MemberDto::new);
     }
 
+    // 전체 회원 내보내기 -> List 로 모으지 않고 DB 에서 읽는 즉시 응답으로 흘려보낸다.
+    // format: ndjson(한 줄에 JSON 하나) 또는 csv
+    @GetMapping("/members/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                                        @RequestParam(value = "fetchSize", defaultValue = "500") int fetchSize) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+
+        // StreamingResponseBody 는 별도 스레드에서 실행되므로, 그 안에서 읽기 전용 트랜잭션을 직접 열어야 커서를 유지할 수 있다.
+        TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+
+        StreamingResponseBody body = out -> readOnlyTx.executeWithoutResult(status -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try (Stream<MemberDto> members = memberRepository.streamMemberDto(fetchSize)) {
+                if (csv) {
+                    writer.write("id,username,teamName\n");
+                }
+                Iterator<MemberDto> iterator = members.iterator();
+                while (iterator.hasNext()) {
+                    MemberDto dto = iterator.next();
+                    writer.write(csv ? toCsvLine(dto) : objectMapper.writeValueAsString(dto));
+                    writer.write('\n');
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    private static String toCsvLine(MemberDto dto) {
+        return dto.getId() + "," + csvValue(dto.getUsername()) + "," + csvValue(dto.getTeamName());
+    }
+
+    // 콤마, 따옴표, 줄바꿈이 들어있으면 따옴표로 감싸고 내부 따옴표는 두 번 쓴다. (RFC 4180)
+    private static String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
 
 //    @PostConstruct
     public void init() {
+        List<Member> members = new ArrayList<>();
         for (int i = 0; i < 100; i++) {
-            memberRepository.save(new Member("user" + i, i));
+            members.add(new Member("user" + i, i));
         }
+        memberRepository.saveAllBatched(members, 50);
     }
 
 }
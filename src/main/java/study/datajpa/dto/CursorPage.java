@@ -0,0 +1,33 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 키셋(seek) 페이징 결과.
+ * OFFSET 대신 마지막으로 읽은 키 이후부터 조회하기 때문에 몇 번째 페이지든 비용이 같고, count 쿼리도 날리지 않는다.
+ */
+@Getter
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final String nextCursor; // 다음 페이지를 요청할 때 그대로 넘겨주는 불투명(opaque) 토큰, 마지막 페이지면 null
+    private final boolean hasNext;
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+
+    // Page.map() 처럼 엔티티를 DTO로 변환할 때 사용한다.
+    public <U> CursorPage<U> map(Function<? super T, ? extends U> converter) {
+        List<U> converted = content.stream()
+                .map(converter)
+                .collect(Collectors.toList());
+        return new CursorPage<>(converted, nextCursor);
+    }
+}
@@ -19,6 +19,7 @@ public class MemberDto {
     public MemberDto(Member member) {
         this.id = member.getId();
         this.username = member.getUsername();
-
+        // 지연 로딩 - 목록을 변환할 때 팀 프록시들은 배치 페치(IN 쿼리)로 한 번에 초기화된다.
+        this.teamName = member.getTeam() != null ? member.getTeam().getName() : null;
     }
 }
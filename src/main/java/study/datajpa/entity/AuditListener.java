@@ -0,0 +1,117 @@
+package study.datajpa.entity;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.annotation.CreatedBy;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedBy;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.domain.AuditorAware;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * @CreatedDate, @LastModifiedDate, @CreatedBy, @LastModifiedBy 필드를 채우는 엔티티 리스너.
+ *
+ * 스프링 데이터의 AuditingEntityListener 는 저장/수정할 때마다 엔티티를 감싸는 빈 래퍼(PersistentPropertyAccessor 등)를 새로 만든다.
+ * 여기서는 엔티티 클래스별로 감사 필드를 한 번만 찾아서 캐시해두고 값만 넣는다.
+ * -> 대량 저장 시 엔티티당 할당은 LocalDateTime 하나뿐이다. (등록자는 트랜잭션당 한 번만 조회 - TransactionScopedAuditorAware)
+ *
+ * 하이버네이트가 스프링 빈 컨테이너로 생성하므로 생성자 주입을 받을 수 있다.
+ */
+public class AuditListener {
+
+    private static final ClassValue<AuditFields> AUDIT_FIELDS = new ClassValue<>() {
+        @Override
+        protected AuditFields computeValue(Class<?> type) {
+            return new AuditFields(type);
+        }
+    };
+
+    private final ObjectProvider<AuditorAware<?>> auditorAwareProvider;
+    private AuditorAware<?> auditorAware;
+
+    public AuditListener(ObjectProvider<AuditorAware<?>> auditorAwareProvider) {
+        this.auditorAwareProvider = auditorAwareProvider;
+    }
+
+    @PrePersist
+    public void touchForCreate(Object target) {
+        AuditFields fields = AUDIT_FIELDS.get(target.getClass());
+        LocalDateTime now = LocalDateTime.now();
+        Object auditor = fields.hasAuditorField() ? currentAuditor() : null;
+
+        // 등록 시점에 수정일/수정자도 같은 값으로 채운다. (AuditingEntityListener 기본 동작과 같다)
+        fields.set(fields.createdDate, target, now);
+        fields.set(fields.lastModifiedDate, target, now);
+        fields.set(fields.createdBy, target, auditor);
+        fields.set(fields.lastModifiedBy, target, auditor);
+    }
+
+    @PreUpdate
+    public void touchForUpdate(Object target) {
+        AuditFields fields = AUDIT_FIELDS.get(target.getClass());
+
+        fields.set(fields.lastModifiedDate, target, LocalDateTime.now());
+        fields.set(fields.lastModifiedBy, target, fields.hasAuditorField() ? currentAuditor() : null);
+    }
+
+    private Object currentAuditor() {
+        AuditorAware<?> auditorAware = this.auditorAware;
+        if (auditorAware == null) {
+            auditorAware = auditorAwareProvider.getIfAvailable(() -> Optional::empty);
+            this.auditorAware = auditorAware;
+        }
+        return auditorAware.getCurrentAuditor().orElse(null);
+    }
+
+    /**
+     * 엔티티 클래스 하나의 감사 필드 (상위 클래스 포함, 없으면 null)
+     */
+    private static class AuditFields {
+
+        private Field createdDate;
+        private Field lastModifiedDate;
+        private Field createdBy;
+        private Field lastModifiedBy;
+
+        AuditFields(Class<?> type) {
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (field.isAnnotationPresent(CreatedDate.class)) {
+                        createdDate = accessible(field);
+                    } else if (field.isAnnotationPresent(LastModifiedDate.class)) {
+                        lastModifiedDate = accessible(field);
+                    } else if (field.isAnnotationPresent(CreatedBy.class)) {
+                        createdBy = accessible(field);
+                    } else if (field.isAnnotationPresent(LastModifiedBy.class)) {
+                        lastModifiedBy = accessible(field);
+                    }
+                }
+            }
+        }
+
+        boolean hasAuditorField() {
+            return createdBy != null || lastModifiedBy != null;
+        }
+
+        void set(Field field, Object target, Object value) {
+            if (field == null || value == null) {
+                return;
+            }
+            try {
+                field.set(target, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("감사 필드를 설정할 수 없습니다: " + field, e);
+            }
+        }
+
+        private static Field accessible(Field field) {
+            field.setAccessible(true);
+            return field;
+        }
+    }
+}
@@ -3,13 +3,12 @@ package study.datajpa.entity;
 import lombok.Getter;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.LastModifiedBy;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.Column;
 import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
 
-@EntityListeners(AuditingEntityListener.class) // 이벤트 기반 동작
+@EntityListeners(AuditListener.class) // 이벤트 기반 동작 (감사 필드를 클래스별로 캐시해서 채운다)
 @MappedSuperclass
 @Getter
 public class BaseEntity extends BaseTimeEntity {
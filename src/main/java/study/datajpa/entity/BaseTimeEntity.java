@@ -3,14 +3,13 @@ package study.datajpa.entity;
 import lombok.Getter;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.Column;
 import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
 import java.time.LocalDateTime;
 
-@EntityListeners(AuditingEntityListener.class) // 이벤트 기반 동작
+@EntityListeners(AuditListener.class) // 이벤트 기반 동작 (감사 필드를 클래스별로 캐시해서 채운다)
 @MappedSuperclass
 @Getter
 public class BaseTimeEntity {
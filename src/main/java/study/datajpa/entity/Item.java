@@ -1,10 +1,10 @@
 package study.datajpa.entity;
 
 import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.domain.Persistable;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.Entity;
 import javax.persistence.EntityListeners;
@@ -12,7 +12,7 @@ import javax.persistence.Id;
 import java.time.LocalDateTime;
 
 @Entity
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners(AuditListener.class)
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // Auditing 사용
 public class Item implements Persistable<String> {
 
@@ -20,6 +20,7 @@ public class Item implements Persistable<String> {
     private String id;
 
     @CreatedDate
+    @Getter
     private LocalDateTime createdDate; // 새로운 객체인지를 판단하기 위한 생성날짜짜
 
    public Item(String id) {
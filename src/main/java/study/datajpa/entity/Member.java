@@ -1,25 +1,42 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member") // 2차 캐시 - findById, 지연 로딩 프록시 초기화 시 DB 대신 캐시에서 조회
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // JPA 사용시 Entity는 기본 생성자 필수 -> Proxy 기술 사용을 위해 protected 으로 설정.
 @ToString(of = {"id", "username", "age"}) // toString은 연관관계가 없는 필드에만 설정하는 것이 좋다.
 @NamedQuery(
         name="Member.findByUsername",
-        query="select m from Member m where m.username = :username"
+        query="select m from Member m where m.username = :username",
+        hints = @QueryHint(name = "org.hibernate.cacheable", value = "true") // 쿼리 캐시 사용
 )
 @NamedEntityGraph(name="Member.all", attributeNodes = @NamedAttributeNode("team"))
+// 조회 메서드가 거는 조건에 맞춘 인덱스 (MemberQueryPlanTest 가 EXPLAIN 으로 확인한다.)
+// username = ? (and age > ?), username in (...) -> (username, age) / age 조건, 벌크 수정(age >= ?) -> age
+@Table(indexes = {
+        @Index(name = "idx_member_username_age", columnList = "username, age"),
+        @Index(name = "idx_member_age", columnList = "age")
+})
 public class Member extends /*JpaBaseEntity*/ BaseEntity {
 
     @Id
-    @GeneratedValue // JPA가 자동으로 ID를 생성해서 넣어줌
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator") // JPA가 자동으로 ID를 생성해서 넣어줌
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq",
+            allocationSize = 50) // 시퀀스를 한 번 호출할 때 50개씩 미리 확보(pooled) -> save() 마다 시퀀스 조회 x
     @Column(name = "member_id")
     private Long id;
+
+    @Version // 낙관적 락 - 수정 시 where version = ? 로 동시 수정을 감지한다. (락을 잡지 않음, OptimisticRetryExecutor 로 재시도)
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     private String username;
     private int age;
 
@@ -53,8 +70,12 @@ public class Member extends /*JpaBaseEntity*/ BaseEntity {
     }
 
     // 연관관계 (세팅)편의 메소드 -> Member 는 Team을 변경할 수 있다!
+    // 팀의 members 는 로딩하지 않는다. (회원이 많은 팀에 한 명을 넣을 때 전체를 읽지 않도록 - Team.addMember)
     public void changeTeam(Team team) {
+        if (this.team != null && this.team != team) {
+            this.team.removeMember(this); // 이전 팀에서 나(this:Member)를 뺀다.
+        }
         this.team = team; // 나(this:Member)의 팀을 변경한다.
-        team.getMembers().add(this); // 팀에서도 나(this:Member)를 수정하도록 한다.
+        team.addMember(this); // 팀에서도 나(this:Member)를 수정하도록 한다.
     }
 }
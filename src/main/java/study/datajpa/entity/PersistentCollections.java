@@ -0,0 +1,38 @@
+package study.datajpa.entity;
+
+import org.hibernate.collection.internal.AbstractPersistentCollection;
+import org.hibernate.collection.spi.PersistentCollection;
+
+import java.util.Collection;
+
+/**
+ * 엔티티가 로딩 전 컬렉션의 상태를 확인할 때 쓰는 하이버네이트 전용 코드를 모아둔다.
+ *
+ * 하이버네이트 5.6 기준 - AbstractPersistentCollection 은 내부(internal) 패키지에 있고,
+ * 하이버네이트 6 에서는 org.hibernate.collection.spi 로 옮겨졌다. 버전을 올리면 이 클래스만 고친다.
+ */
+final class PersistentCollections {
+
+    private PersistentCollections() {
+    }
+
+    /**
+     * 영속성 컨텍스트에 연결된 컬렉션인지 (준영속이거나 새 엔티티의 일반 컬렉션이면 false)
+     */
+    static boolean isAttached(Collection<?> collection) {
+        return collection instanceof AbstractPersistentCollection
+                && ((AbstractPersistentCollection) collection).getSession() != null;
+    }
+
+    /**
+     * 영속성 컨텍스트를 flush 하고, 로딩 전 컬렉션이 기억해둔 개수(extra-lazy size)를 버린다.
+     * 다음 size() / contains() 는 DB 에서 다시 확인한다.
+     */
+    static void flush(Collection<?> collection) {
+        if (!isAttached(collection)) {
+            return;
+        }
+        ((AbstractPersistentCollection) collection).getSession().flush();
+        ((PersistentCollection) collection).postAction(); // flush 후 큐는 비어 있다. 캐시된 개수만 초기화된다.
+    }
+}
@@ -1,29 +1,104 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
+import org.hibernate.annotations.OptimisticLock;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team") // 팀은 거의 바뀌지 않는다 -> Member.team 지연 로딩도 2차 캐시에서 채워진다.
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // JPA 사용시 Entity는 기본 생성자 필수 -> Proxy 기술 사용을 위해 protected 으로 설정.
 @ToString(of = {"id", "name"}) // toString은 연관관계가 없는 필드에만 설정하는 것이 좋다.
+@BatchSize(size = 100) // Member.team 프록시들을 where tema_id in (...) 한 번으로 초기화
 public class Team extends /*JpaBaseEntity*/ BaseEntity {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
     @Column(name = "tema_id")
     private Long id;
+
+    @Version // 낙관적 락 (팀 이름 변경 등 동시 수정 감지)
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     private String name; // 팀이름
 
     // 양방향 연관관계 설정
     @OneToMany(mappedBy = "team") // fk가 없는 쪽에 mappedBy 설정
+    @BatchSize(size = 100) // 여러 팀의 members 컬렉션을 where team_id in (...) 한 번으로 초기화
+    @LazyCollection(LazyCollectionOption.EXTRA) // 로딩 전 size(), contains(), isEmpty() 는 컬렉션 전체 대신 count / 존재 여부 SQL 로 확인한다.
+    @OptimisticLock(excluded = true) // 회원 추가/이동은 팀 수정이 아니다. -> 팀 version 을 올리지 않는다. (팀 update, 2차 캐시 무효화, 동시 추가 충돌 없음)
     private List<Member> members = new ArrayList<>();
 
+    // 로딩 전 members 에서 회원이 빠졌는지 - bag 은 remove 를 큐에 쌓지 못하므로 직접 기억해둔다. (removeMember)
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean membersLeft;
+
     public Team(String name) {
         this.name = name;
     }
+
+    /**
+     * 팀 회원 수 - members 가 로딩 전이면 select count(member_id) from member where team_id = ? 한 번으로 센다.
+     */
+    public int memberCount() {
+        flushIfMembersLeft();
+        return members.size();
+    }
+
+    /**
+     * 팀 회원인지 - members 가 로딩 전이면 select 1 from member where team_id = ? and member_id = ? 로 확인한다.
+     */
+    public boolean hasMember(Member member) {
+        flushIfMembersLeft();
+        return members.contains(member);
+    }
+
+    /**
+     * Member.changeTeam 에서만 호출한다. members 를 로딩하지 않는다.
+     * - 로딩된 컬렉션(새 팀 포함): 바로 추가
+     * - 영속 상태에서 로딩 전: 역방향(mappedBy) bag 은 add 를 큐에 쌓아두고, 나중에 로딩하면 DB 결과에 합친다.
+     *   (size/contains 를 SQL 로 확인하기 전에는 큐를 flush 한다.)
+     * - 준영속 상태에서 로딩 전: 추가하지 않는다. 회원의 team_id(FK)가 기준이므로 다음에 로딩할 때 DB 에서 읽힌다.
+     */
+    void addMember(Member member) {
+        if (Hibernate.isInitialized(members) || PersistentCollections.isAttached(members)) {
+            members.add(member);
+        }
+    }
+
+    /**
+     * Member.changeTeam 에서만 호출한다. bag 의 remove 는 큐에 쌓이지 않고 컬렉션을 로딩하므로, 로딩된 컬렉션에서만 뺀다.
+     * 로딩 전이면 빠졌다는 것만 기억해두고, memberCount / hasMember 가 SQL 로 확인하기 전에 flush 한다.
+     * (그 전에 getMembers() 로 로딩하면 flush 전 FK 기준이라 빠진 회원이 남아 있다.)
+     */
+    void removeMember(Member member) {
+        if (Hibernate.isInitialized(members)) {
+            members.remove(member);
+        } else {
+            membersLeft = true;
+        }
+    }
+
+    private void flushIfMembersLeft() {
+        if (membersLeft) {
+            membersLeft = false;
+            if (!Hibernate.isInitialized(members)) {
+                PersistentCollections.flush(members);
+            }
+        }
+    }
 }
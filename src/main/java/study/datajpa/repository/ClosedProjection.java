@@ -0,0 +1,251 @@
+package study.datajpa.repository;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.FieldManifestation;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import net.bytebuddy.implementation.EqualsMethod;
+import net.bytebuddy.implementation.FieldAccessor;
+import net.bytebuddy.implementation.HashCodeMethod;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.implementation.ToStringMethod;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 닫힌(closed) 인터페이스 Projections(UsernameOnly, NestedClosedProjections, MemberProjection ...) 의 구현 클래스를 만들어서,
+ * 조회 결과 행(Object[])의 컬럼을 순서대로 생성자에 넘긴다.
+ *
+ * 스프링 데이터의 인터페이스 Projections 는 행마다 Map(TupleBackedMap) + JDK 동적 프록시를 만들고,
+ * getter 를 호출할 때마다 프록시 -> 인터셉터 -> Map 조회를 거친다.
+ * 여기서는 타입마다 필드 + getter 만 있는 클래스를 한 번 만들어두고(ByteBuddy), 행마다 객체 하나만 만든다.
+ *
+ * - getXxx()/isXxx() 만 있고 @Value(SpEL)가 없는 인터페이스만 지원한다. (isClosed)
+ * - 반환 타입이 닫힌 인터페이스면 중첩 Projections 로 보고, 그 프로퍼티들을 이어서 펼친다. (username, team.name)
+ *   중첩 프로퍼티 값이 모두 null 이면 (left join 대상이 없으면) 중첩 객체도 null 이다.
+ * - 컬럼 순서는 getPaths() 순서다. 쿼리의 select 절을 이 순서로 만들어야 한다.
+ */
+final class ClosedProjection<T> {
+
+    private static final ClassValue<ClosedProjection<?>> CACHE = new ClassValue<ClosedProjection<?>>() {
+        @Override
+        protected ClosedProjection<?> computeValue(Class<?> type) {
+            return new ClosedProjection<>(type);
+        }
+    };
+
+    private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+
+    private final Class<T> type;
+    private final Property[] properties;
+    private final List<String> paths;
+    private final int width; // 컬럼 수 (중첩 프로퍼티 포함)
+    private final MethodHandle constructor; // (Object[] 생성자 인자) -> 구현 객체
+
+    private ClosedProjection(Class<T> type) {
+        if (!isClosed(type)) {
+            throw new IllegalArgumentException("닫힌 인터페이스 Projections 가 아닙니다: " + type.getName());
+        }
+        this.type = type;
+
+        List<Property> properties = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        int column = 0;
+        for (Method getter : getters(type)) {
+            String name = propertyName(getter);
+            Class<?> returnType = getter.getReturnType();
+            if (isNested(returnType)) {
+                ClosedProjection<?> nested = of(returnType);
+                properties.add(new Property(getter, name, column, nested));
+                nested.paths.forEach(path -> paths.add(name + "." + path));
+                column += nested.width;
+            } else {
+                properties.add(new Property(getter, name, column, null));
+                paths.add(name);
+                column++;
+            }
+        }
+        this.properties = properties.toArray(new Property[0]);
+        this.paths = Collections.unmodifiableList(paths);
+        this.width = column;
+        this.constructor = generate(type, this.properties);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> ClosedProjection<T> of(Class<T> type) {
+        return (ClosedProjection<T>) CACHE.get(type);
+    }
+
+    /**
+     * getter 만 있는 인터페이스인지 확인한다. (중첩 인터페이스도 같은 조건)
+     */
+    static boolean isClosed(Class<?> type) {
+        if (!type.isInterface() || type.getName().startsWith("java.")) {
+            return false;
+        }
+        List<Method> getters = getters(type);
+        if (getters.isEmpty()) {
+            return false;
+        }
+        for (Method getter : getters) {
+            if (getter.getParameterCount() > 0 || getter.getReturnType() == void.class
+                    || getter.isAnnotationPresent(Value.class) || propertyName(getter) == null) {
+                return false;
+            }
+            if (getter.getReturnType().isInterface() && !isNested(getter.getReturnType())) {
+                return false; // 컬렉션 등은 행 하나로 채울 수 없다.
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return select 절에 넣을 프로퍼티 경로, 컬럼 순서대로 ("username", "team.name")
+     */
+    List<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * @param row getPaths() 순서로 조회한 컬럼 값
+     */
+    T newInstance(Object[] row) {
+        return type.cast(instantiate(row, 0));
+    }
+
+    private Object instantiate(Object[] row, int offset) {
+        Object[] arguments = offset == 0 && row.length == properties.length && isFlat() ? row : new Object[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            arguments[i] = properties[i].value(row, offset);
+        }
+        try {
+            return constructor.invokeExact(arguments);
+        } catch (Throwable e) {
+            throw new IllegalStateException(type.getName() + " Projections 생성 실패 - 행: " + Arrays.toString(row), e);
+        }
+    }
+
+    private boolean isFlat() {
+        return width == properties.length;
+    }
+
+    private boolean isAllNull(Object[] row, int offset) {
+        for (int i = offset; i < offset + width; i++) {
+            if (row[i] != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // getter 이름순 (쿼리 문자열이 실행할 때마다 같도록)
+    private static List<Method> getters(Class<?> type) {
+        List<Method> getters = new ArrayList<>();
+        for (Method method : type.getMethods()) {
+            if (!method.isDefault() && !Modifier.isStatic(method.getModifiers())) {
+                getters.add(method);
+            }
+        }
+        getters.sort(Comparator.comparing(Method::getName));
+        return getters;
+    }
+
+    private static boolean isNested(Class<?> type) {
+        return type.isInterface() && !type.getName().startsWith("java.") && isClosed(type);
+    }
+
+    private static String propertyName(Method getter) {
+        String name = getter.getName();
+        if (name.startsWith("get") && name.length() > 3) {
+            return Character.toLowerCase(name.charAt(3)) + name.substring(4);
+        }
+        if (name.startsWith("is") && name.length() > 2 && ClassUtils.resolvePrimitiveIfNecessary(getter.getReturnType()) == Boolean.class) {
+            return Character.toLowerCase(name.charAt(2)) + name.substring(3);
+        }
+        return null;
+    }
+
+    /**
+     * type 을 구현하는 클래스를 같은 패키지에 만든다.
+     * 프로퍼티마다 final 필드 + getter, 모든 필드를 받는 생성자, equals/hashCode/toString
+     */
+    private static MethodHandle generate(Class<?> type, Property[] properties) {
+        try {
+            Class<?>[] fieldTypes = new Class<?>[properties.length];
+            DynamicType.Builder<Object> builder = new ByteBuddy()
+                    .subclass(Object.class, ConstructorStrategy.Default.NO_CONSTRUCTORS)
+                    .implement(type)
+                    .name(type.getName() + "$Generated");
+
+            Implementation.Composable constructor = MethodCall.invoke(Object.class.getConstructor());
+            for (int i = 0; i < properties.length; i++) {
+                Property property = properties[i];
+                fieldTypes[i] = property.getter.getReturnType();
+                builder = builder.defineField(property.name, fieldTypes[i], Visibility.PRIVATE, FieldManifestation.FINAL)
+                        .define(property.getter).intercept(FieldAccessor.ofField(property.name));
+                constructor = constructor.andThen(FieldAccessor.ofField(property.name).setsArgumentAt(i));
+            }
+
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            Class<?> generated = builder
+                    .defineConstructor(Visibility.PUBLIC).withParameters(fieldTypes).intercept(constructor)
+                    .defineMethod("toString", String.class, Visibility.PUBLIC).intercept(ToStringMethod.prefixedBySimpleClassName())
+                    .defineMethod("equals", boolean.class, Visibility.PUBLIC).withParameters(Object.class).intercept(EqualsMethod.isolated())
+                    .defineMethod("hashCode", int.class, Visibility.PUBLIC).intercept(HashCodeMethod.usingDefaultOffset())
+                    .make()
+                    .load(type.getClassLoader(), ClassLoadingStrategy.UsingLookup.of(lookup))
+                    .getLoaded();
+
+            // (Object[]) -> Object 로 맞춰두면 invokeExact 로 박싱/배열 복사 없이 호출된다.
+            return lookup.findConstructor(generated, MethodType.methodType(void.class, fieldTypes))
+                    .asSpreader(Object[].class, fieldTypes.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(type.getName() + " 구현 클래스를 만들 수 없습니다.", e);
+        }
+    }
+
+    private static class Property {
+
+        private final Method getter;
+        private final String name;
+        private final int column;
+        private final Class<?> valueType;
+        private final ClosedProjection<?> nested;
+
+        Property(Method getter, String name, int column, ClosedProjection<?> nested) {
+            this.getter = getter;
+            this.name = name;
+            this.column = column;
+            this.valueType = ClassUtils.resolvePrimitiveIfNecessary(getter.getReturnType());
+            this.nested = nested;
+        }
+
+        Object value(Object[] row, int offset) {
+            if (nested != null) {
+                return nested.isAllNull(row, offset + column) ? null : nested.instantiate(row, offset + column);
+            }
+            Object value = row[offset + column];
+            if (value != null && !valueType.isInstance(value)) { // 네이티브 쿼리 - ex) BigInteger -> Long
+                return CONVERSION_SERVICE.convert(value, valueType);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Item;
+
+import java.util.Collection;
+
+public interface ItemRepositoryCustom {
+
+    /**
+     * id 가 없을 때만 INSERT 한다. (MERGE 한 문장 - save() 처럼 merge 전에 SELECT 하지 않는다.)
+     * 이미 있는 item 은 그대로 두므로 외부 키로 같은 데이터를 여러 번 적재해도 결과가 같다.
+     *
+     * 등록일(createdDate)이 비어 있으면 현재 시각으로 넣는다. 넘겨받은 item 은 바꾸지 않는다.
+     * 이미 있던 item 은 DB 의 등록일이 유지된다.
+     * 같은 트랜잭션에서 persist 한 item 이 있을 수 있으므로 MERGE 전에 영속성 컨텍스트를 flush 한다.
+     *
+     * @return 새로 저장된 item 수
+     */
+    int upsert(Item item);
+
+    /**
+     * upsert 를 JDBC 배치로 실행한다. (hibernate.jdbc.batch_size 건마다 DB 왕복 한 번)
+     */
+    int upsertAll(Collection<Item> items);
+}
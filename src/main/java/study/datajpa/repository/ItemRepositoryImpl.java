@@ -0,0 +1,87 @@
+package study.datajpa.repository;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    // 표준 SQL MERGE - H2, PostgreSQL 15+, Oracle, SQL Server 에서 동작한다.
+    private static final String UPSERT_SQL = "merge into item t" +
+            " using (values (cast(? as varchar(255)), cast(? as timestamp))) s(id, created_date)" +
+            " on t.id = s.id" +
+            " when not matched then insert (id, created_date) values (s.id, s.created_date)";
+
+    private final EntityManager em;
+
+    public ItemRepositoryImpl(EntityManager em) {
+        this.em = em;
+    }
+
+    @Override
+    @Transactional
+    public int upsert(Item item) {
+        return upsertAll(List.of(item));
+    }
+
+    @Override
+    @Transactional
+    public int upsertAll(Collection<Item> items) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+
+        Session session = em.unwrap(Session.class);
+        int batchSize = session.getSessionFactory().unwrap(SessionFactoryImplementor.class)
+                .getSessionFactoryOptions()
+                .getJdbcBatchSize();
+
+        // 같은 트랜잭션에서 persist 하고 아직 flush 하지 않은 item 이 있으면, MERGE 가 먼저 INSERT 하고
+        // 나중에 하이버네이트가 flush 할 때 중복 키 오류가 난다. -> MERGE 전에 flush 해서 DB 에 먼저 반영한다.
+        session.flush();
+
+        // 네이티브 SQL 이라 엔티티 콜백(AuditListener)이 호출되지 않는다. 등록일은 넘겨받은 item 을 바꾸지 않고 여기서만 채운다.
+        // (이미 있던 item 이면 DB 의 등록일이 유지되므로, item 에 넣으면 DB 와 달라진다.)
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        int[] inserted = {0};
+        session.doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(UPSERT_SQL)) {
+                int pending = 0;
+                for (Item item : items) {
+                    ps.setString(1, item.getId());
+                    ps.setTimestamp(2, item.getCreatedDate() != null ? Timestamp.valueOf(item.getCreatedDate()) : now);
+                    ps.addBatch();
+
+                    if (++pending == Math.max(batchSize, 1)) {
+                        inserted[0] += insertedCount(ps.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    inserted[0] += insertedCount(ps.executeBatch());
+                }
+            }
+        });
+        return inserted[0];
+    }
+
+    private static int insertedCount(int[] updateCounts) {
+        int count = 0;
+        for (int updateCount : updateCounts) {
+            if (updateCount > 0 || updateCount == Statement.SUCCESS_NO_INFO) { // 드라이버가 건수를 모르면 저장된 것으로 본다.
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,36 @@
+package study.datajpa.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 키셋 페이징에 사용하는 커서 토큰.
+ * 클라이언트에게는 member_id 를 Base64(URL-safe)로 감싼 불투명한 문자열만 노출한다.
+ */
+public final class MemberCursor {
+
+    private MemberCursor() {
+    }
+
+    public static String encode(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return 커서가 비어있으면 null (첫 페이지)
+     * @throws IllegalArgumentException 잘못된 커서 토큰
+     */
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            byte[] decoded = Base64.getUrlDecoder().decode(cursor);
+            return Long.valueOf(new String(decoded, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) { // NumberFormatException 포함
+            throw new IllegalArgumentException("잘못된 커서 토큰입니다: " + cursor, e);
+        }
+    }
+}
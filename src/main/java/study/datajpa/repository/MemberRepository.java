@@ -5,6 +5,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
@@ -12,13 +14,18 @@ import javax.persistence.LockModeType;
 import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
-public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, JpaSpecificationExecutor {
+// 조회 메서드는 읽기 전용 트랜잭션 -> 스냅샷/flush 생략, replica 가 있으면 replica 로 라우팅 (ReplicaDataSourceConfig)
+// save, delete 등 SimpleJpaRepository 의 변경 메서드는 자체 @Transactional 이 우선한다.
+@Transactional(readOnly = true)
+public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, JpaSpecificationExecutor<Member> {
     // 엔티티, PK
 
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
 
     @Query(name = "Member.findByUsername")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true")) // 쿼리 캐시 - 벌크 연산 시 하이버네이트가 자동으로 무효화한다.
     List<Member> findByUsername(@Param("username") String username);
 
     // Spring Data JPA 가 제공하는 리포지토리 메소드에 쿼리 정의 기능!!!
@@ -32,9 +39,6 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
-    @Query("select m from Member m where m.username in :names")
-    List<Member> findByNames(@Param("names") List<String> names);
-
     List<Member> findListByUsername(String username); // 컬렉션
     Member findMemberByUsername(String username); // 단건
     Optional<Member> findOptionalByUsername(String username); // 단건 Optional
@@ -45,8 +49,11 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
             countQuery = "select count(m) from Member m")
     Page<Member> findByAge(int age, Pageable pageable);
 
+    // 벌크 JPQL 은 실행 시 하이버네이트가 Member 2차 캐시 리전과 쿼리 캐시를 자동으로 무효화한다.
+    // 벌크 JPQL 은 @Version 을 올리지 않으므로 직접 올린다. (먼저 읽어둔 엔티티가 커밋할 때 충돌로 감지되도록)
+    @Transactional
     @Modifying(clearAutomatically = true) // 이 어노테이션이 있어야 executeUpdate() 를 실행할 수 있다.
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    @Query("update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
 
     @Query("select m from Member m left join fetch m.team")
@@ -70,19 +77,27 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @QueryHints(value = @QueryHint(name = "org.hibernate.readOnly", value = "true"))
     Member findReadOnlyByUsername(String username);
 
+    @Transactional // 락은 primary 에서 잡아야 한다.
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     List<Member> findLockByUsername(String username);
 
+    // 비동기 조회 - queryExecutor 스레드의 읽기 전용 트랜잭션에서 실행되고 바로 CompletableFuture 를 반환한다.
+    // 서로 관계없는 조회 여러 개를 동시에 실행할 때 사용한다. 결과 엔티티는 준영속 상태이므로 필요한 연관관계는 함께 조회한다.
+    @Async("queryExecutor")
+    @EntityGraph(attributePaths = {"team"})
+    CompletableFuture<List<Member>> findAsyncByUsername(String username);
+
+    @Async("queryExecutor")
+    @Query("select count(m) from Member m join m.team t where t.name = :teamName") // 메서드 이름 쿼리는 left join 이라 member 를 전체 스캔한다.
+    CompletableFuture<Long> countAsyncByTeamName(@Param("teamName") String teamName);
+
     // Projections 를 사용한 MemberRepository
     List<UsernameOnlyDto> findProjectionsByUsername(@Param("username") String username);
 
+    // 동적 Projections(findProjectionsByUsername(username, type))와 네이티브 Projections(findByNativeProjection)는 MemberRepositoryCustom 참고
+
     // nativeQuery 사용
     @Query(value = "select * from member where username = ?", nativeQuery = true)
     Member findByNativeQuery(String username);
 
-    @Query(value = "select m.member_id as id, m.username, t.name as teamName from member m left join team t",
-            countQuery = "select count(*) from member",
-            nativeQuery = true)
-    Page<MemberProjection> findByNativeProjection(Pageable pageable);
-
 }
@@ -1,8 +1,18 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSearchCondition;
 import study.datajpa.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * 스프링 데이터 JPA가 제공하는 인터페이스를 사용하지 않고, 메서드를 직접 만들어서 사용해보자.
@@ -10,4 +20,123 @@ import java.util.List;
 public interface MemberRepositoryCustom {
 
     List<Member> findMemberCustom();
+
+    /**
+     * username in (...) 조회. 이름 목록이 크면 IN_CHUNK_SIZE 개씩 나눠서 조회한 뒤 합친다. (중복 이름은 한 번만 조회)
+     * IN 파라미터 개수는 2의 거듭제곱으로 패딩된다. (hibernate.query.in_clause_parameter_padding)
+     * -> 목록 크기가 달라도 같은 SQL 이 재사용된다.
+     *
+     * 트랜잭션 안에서 호출하면 그 영속성 컨텍스트에서 순서대로 조회하고,
+     * 트랜잭션 밖에서 호출하면 조각들을 queryExecutor 에서 동시에(각자 읽기 전용 트랜잭션) 조회한다.
+     */
+    List<Member> findByNames(List<String> names);
+
+    /**
+     * 키셋(seek) 페이징 - member_id 기준 오름차순으로 cursor 다음 회원들을 size 만큼 조회한다.
+     *
+     * @param cursor 이전 페이지의 nextCursor, 첫 페이지는 null 또는 빈 문자열
+     * @param size   페이지 크기
+     */
+    CursorPage<Member> findMemberPage(String cursor, int size);
+
+    /**
+     * findAll(Pageable) 과 같지만 count 쿼리를 최대한 생략한다. (PageCountCache 참고)
+     * 마지막 페이지처럼 내용이 페이지 크기보다 작으면 count 쿼리를 날리지 않고, 전체 개수는 잠깐 캐시해서 재사용한다.
+     */
+    Page<Member> findPage(Pageable pageable);
+
+    Page<Member> findPageByAge(int age, Pageable pageable);
+
+    /**
+     * 동적 검색 - findAll(MemberSpec.username(..).and(MemberSpec.teamName(..)), ..) 과 같은 결과.
+     * 조건 모양별로 만들어둔 JPQL 을 재사용하고(MemberSearchQuery), 전체 개수는 PageCountCache 로 재사용한다.
+     */
+    List<Member> search(MemberSearchCondition condition);
+
+    Page<Member> search(MemberSearchCondition condition, Pageable pageable);
+
+    /**
+     * 동적 Projections - 반환 타입을 호출할 때 정한다. (UsernameOnly, NestedClosedProjections, UsernameOnlyDto ...)
+     *
+     * 닫힌 인터페이스 Projections 는 미리 만들어둔 구현 클래스(ClosedProjection)에 select 결과를 순서대로 채운다. -> 행마다 프록시/Map 을 만들지 않는다.
+     * DTO 클래스는 생성자 파라미터 이름으로 select new 를 만들고, 열린 Projections(@Value)는 엔티티를 조회해서 프록시로 감싼다.
+     */
+    <T> List<T> findProjectionsByUsername(String username, Class<T> type);
+
+    /**
+     * 네이티브 쿼리 + 인터페이스 Projections 페이징 - MemberProjection 구현 클래스에 컬럼을 순서대로 채운다.
+     * 정렬은 MemberProjection 프로퍼티(id, username, teamName)로 한다.
+     */
+    Page<MemberProjection> findByNativeProjection(Pageable pageable);
+
+    /**
+     * Specification 조건 + 페이징/정렬로 MemberDto 에 필요한 컬럼(id, username[, team.name])만 조회한다.
+     * findAll(spec, pageable) 과 달리 엔티티를 만들지 않아서 영속성 컨텍스트에 쌓이지 않고 스냅샷(변경 감지)도 없다.
+     *
+     * @param includeTeam true 면 팀과 조인해서 teamName 을 채운다. (spec 에 팀 조인이 있으면 그 조인을 사용) false 면 teamName 은 null
+     */
+    Page<MemberDto> findMemberDtos(Specification<Member> spec, Pageable pageable, boolean includeTeam);
+
+    /**
+     * Specification 조건 + 페이징/정렬로 닫힌 인터페이스 Projections(UsernameOnly, NestedClosedProjections ...)에 필요한 컬럼만 조회한다.
+     * 중첩 Projections 가 있을 때만 그 연관관계(team)와 조인한다.
+     */
+    <T> Page<T> findProjectionsBy(Specification<Member> spec, Class<T> type, Pageable pageable);
+
+    /**
+     * 대량 저장 - batchSize 건마다 flush(JDBC 배치 전송) 후 영속성 컨텍스트를 비워서 메모리를 일정하게 유지한다.
+     * 호출한 트랜잭션의 영속성 컨텍스트도 함께 비워지므로, 저장 이후에는 기존 엔티티를 다시 조회해서 사용해야 한다.
+     *
+     * @return 저장한 회원 수
+     */
+    int saveAllBatched(Iterable<Member> members, int batchSize);
+
+    /**
+     * 전체 회원을 DTO 로 스트리밍 조회한다. (FORWARD_ONLY 커서, fetchSize 건씩 DB 에서 가져온다.)
+     * 엔티티가 아닌 DTO 로 조회하기 때문에 영속성 컨텍스트에 아무것도 쌓이지 않는다 -> 테이블 크기와 상관없이 메모리가 일정하다.
+     *
+     * 커서가 열려있는 동안 커넥션을 사용하므로 트랜잭션 안에서 호출하고, 다 쓴 Stream 은 반드시 close 해야 한다.
+     */
+    Stream<MemberDto> streamMemberDto(int fetchSize);
+
+    /**
+     * 벌크성 수정 쿼리 - age 이상인 회원의 나이를 +1 한다.
+     *
+     * 수정 대상 회원을 member_id 순으로 chunkSize 명씩 나눠서 UPDATE 를 여러 번 실행한다.
+     * (청크 경계는 실제 id 에서 구하므로 시퀀스 할당 등으로 id 가 듬성듬성해도 빈 UPDATE 를 날리지 않는다.)
+     * 트랜잭션 밖에서 호출하면 청크마다 따로 커밋되므로 수백만 건을 수정해도 한 번에 거대한 락/언두를 잡지 않는다.
+     * 트랜잭션 안에서 호출하면 모든 청크가 호출한 트랜잭션에 참여한다. -> 락은 커밋할 때까지 유지되므로 락을 나누는 효과는 없다.
+     *
+     * bulkAgePlus 처럼 영속성 컨텍스트를 통째로 비우지 않고, 이미 로딩돼 있던 회원 중 수정 대상인 회원만 refresh 한다.
+     * (Member 2차 캐시 리전과 쿼리 캐시는 벌크 JPQL 실행 시 하이버네이트가 무효화한다.)
+     *
+     * @return 수정된 회원 수
+     */
+    int bulkAgePlusInChunks(int age, int chunkSize);
+
+    /**
+     * 대량 처리 - 전체 회원을 chunkSize 명씩 processor 에 넘기고, processor 가 반환한 회원만 update 한다.
+     * 벌크 JPQL 로 표현하기 어려운 회원별 로직을 수백만 건에 적용할 때 사용한다.
+     *
+     * StatelessSession 으로 member_id 순서대로 chunkSize 명씩 읽고, update 는 청크마다 JDBC 배치로 보낸다.
+     * 영속성 컨텍스트(1차 캐시, 스냅샷)가 없으므로 회원 수와 상관없이 메모리가 일정하다.
+     *
+     * - 호출한 트랜잭션을 잠시 중단하고, 별도 커넥션에서 청크마다 트랜잭션을 열고 커밋한다.
+     *   수백만 건이어도 락과 언두는 청크 하나만큼만 잡는다.
+     * - 예외가 나면 그 청크만 롤백된다. 앞서 커밋된 청크는 그대로 남으므로, processor 는 다시 실행해도 되게 만든다.
+     * - 회원의 team 은 함께 조회해서 채운다. 엔티티는 영속 상태가 아니므로 지연 로딩, 변경 감지는 되지 않는다.
+     * - update 는 version 을 올리고 수정일/수정자를 채운다. 그 사이 다른 트랜잭션이 수정했으면 낙관적 락 예외로 실패한다.
+     * - 2차 캐시를 거치지 않으므로, 끝나면 Member 캐시 리전과 쿼리 캐시를 비운다.
+     *
+     * @param processor 회원 chunkSize 명 이하를 받아서 수정할 회원을 반환한다.
+     * @return 수정한 회원 수
+     */
+    long updateMembersInChunks(int chunkSize, Function<List<Member>, ? extends Collection<Member>> processor);
+
+    /**
+     * 대량 처리 - 회원 한 명씩 processor 를 호출하고, true 를 반환한 회원만 update 한다. (updateMembersInChunks 참고)
+     *
+     * @return 수정한 회원 수
+     */
+    long updateEachMember(int chunkSize, Predicate<Member> processor);
 }
@@ -1,19 +1,600 @@
 package study.datajpa.repository;
 
-import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.mapping.PreferredConstructor;
+import org.springframework.data.mapping.model.PreferredConstructorDiscoverer;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSearchCondition;
+import study.datajpa.entity.AuditListener;
 import study.datajpa.entity.Member;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.RollbackException;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-@RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    // IN 절 하나에 넣는 최대 파라미터 수 - 2의 거듭제곱이라 패딩해도 크기가 그대로다. (Oracle 한도 1000 보다 작게)
+    static final int IN_CHUNK_SIZE = 512;
+    private static final int MAX_PARALLEL_QUERIES = 4;
+
+    // findByNativeProjection - MemberProjection 프로퍼티 -> 컬럼
+    private static final Map<String, String> NATIVE_PROJECTION_COLUMNS = Map.of(
+            "id", "m.member_id",
+            "username", "m.username",
+            "teamName", "t.name");
+    private static final ClosedProjection<MemberProjection> NATIVE_PROJECTION = ClosedProjection.of(MemberProjection.class);
+    private static final String NATIVE_PROJECTION_SQL = "select " + NATIVE_PROJECTION.getPaths().stream()
+            .map(NATIVE_PROJECTION_COLUMNS::get)
+            .collect(Collectors.joining(", ")) +
+            " from member m left join team t on t.tema_id = m.team_id";
+
+    // 동적 Projections 타입별 JPQL
+    private static final Map<Class<?>, String> PROJECTION_JPQL = new ConcurrentHashMap<>();
+    private static final ProjectionFactory PROJECTION_FACTORY = new SpelAwareProxyProjectionFactory();
+
     private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+    private final PageCountCache pageCountCache;
+    private final AsyncTaskExecutor queryExecutor;
+    private final AuditListener auditListener; // StatelessSession 은 엔티티 리스너를 호출하지 않는다. (updateMembersInChunks)
 
+    public MemberRepositoryImpl(EntityManager em, PlatformTransactionManager transactionManager, PageCountCache pageCountCache,
+                                @Qualifier("queryExecutor") AsyncTaskExecutor queryExecutor,
+                                ObjectProvider<AuditorAware<?>> auditorAwareProvider) {
+        this.em = em;
+        this.transactionManager = transactionManager;
+        this.pageCountCache = pageCountCache;
+        this.queryExecutor = queryExecutor;
+        this.auditListener = new AuditListener(auditorAwareProvider);
+    }
+
+    // 사용자 정의 조회 메서드도 MemberRepository 조회 메서드처럼 읽기 전용 트랜잭션으로 실행한다.
+    // (streamMemberDto 는 호출한 쪽 트랜잭션 안에서 소비해야 하므로, bulkAgePlusInChunks 는 청크마다 트랜잭션을 열므로 제외)
     @Override
+    @Transactional(readOnly = true)
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
+
+    @Override
+    public List<Member> findByNames(List<String> names) {
+        List<String> distinctNames = new ArrayList<>(new LinkedHashSet<>(names));
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinctNames.size(); from += IN_CHUNK_SIZE) {
+            chunks.add(distinctNames.subList(from, Math.min(from + IN_CHUNK_SIZE, distinctNames.size())));
+        }
+
+        TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+
+        // 호출한 트랜잭션이 있으면 같은 영속성 컨텍스트를 써야 하므로 한 스레드에서 순서대로 조회한다.
+        if (TransactionSynchronizationManager.isActualTransactionActive() || chunks.size() <= 1) {
+            return readOnlyTx.execute(status -> {
+                List<Member> result = new ArrayList<>();
+                chunks.forEach(chunk -> result.addAll(findByNamesChunk(chunk)));
+                return result;
+            });
+        }
+
+        // 커넥션을 너무 많이 잡지 않도록 작업은 MAX_PARALLEL_QUERIES 개까지만 만들고, 작업마다 조각 여러 개를 순서대로 조회한다.
+        int parallelism = Math.min(chunks.size(), MAX_PARALLEL_QUERIES);
+        List<CompletableFuture<List<Member>>> futures = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            int first = i;
+            futures.add(CompletableFuture.supplyAsync(() -> readOnlyTx.execute(status -> {
+                List<Member> result = new ArrayList<>();
+                for (int c = first; c < chunks.size(); c += parallelism) {
+                    result.addAll(findByNamesChunk(chunks.get(c)));
+                }
+                return result;
+            }), queryExecutor));
+        }
+
+        List<Member> result = new ArrayList<>();
+        try {
+            futures.forEach(future -> result.addAll(future.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause(); // 조회 중 발생한 예외를 그대로 던진다.
+            }
+            throw e;
+        }
+        return result;
+    }
+
+    private List<Member> findByNamesChunk(List<String> names) {
+        return em.createQuery("select m from Member m where m.username in :names", Member.class)
+                .setParameter("names", names)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Member> findMemberPage(String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("페이지 크기는 1 이상이어야 합니다.");
+        }
+
+        Long lastId = MemberCursor.decode(cursor);
+
+        // OFFSET 을 쓰지 않고 PK 인덱스를 타고 마지막 id 다음부터 바로 읽는다. -> 깊은 페이지도 첫 페이지와 비용이 같다.
+        TypedQuery<Member> query = lastId == null
+                ? em.createQuery("select m from Member m order by m.id asc", Member.class)
+                : em.createQuery("select m from Member m where m.id > :lastId order by m.id asc", Member.class)
+                        .setParameter("lastId", lastId);
+
+        // 한 건 더 조회해서 다음 페이지가 있는지 판단한다. (count 쿼리 x)
+        List<Member> result = query
+                .setMaxResults(size + 1)
+                .getResultList();
+
+        if (result.size() <= size) {
+            return new CursorPage<>(result, null);
+        }
+
+        List<Member> content = result.subList(0, size);
+        return new CursorPage<>(content, MemberCursor.encode(content.get(size - 1).getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Member> findPage(Pageable pageable) {
+        return pageCountCache.getPage("Member.findPage", pageable,
+                () -> em.createQuery(QueryUtils.applySorting("select m from Member m", pageable.getSort(), "m"), Member.class)
+                        .setFirstResult((int) pageable.getOffset())
+                        .setMaxResults(pageable.getPageSize())
+                        .getResultList(),
+                () -> em.createQuery("select count(m) from Member m", Long.class)
+                        .getSingleResult());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Member> findPageByAge(int age, Pageable pageable) {
+        return pageCountCache.getPage("Member.findPageByAge:" + age, pageable,
+                () -> em.createQuery(QueryUtils.applySorting("select m from Member m where m.age = :age", pageable.getSort(), "m"), Member.class)
+                        .setParameter("age", age)
+                        .setFirstResult((int) pageable.getOffset())
+                        .setMaxResults(pageable.getPageSize())
+                        .getResultList(),
+                () -> em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                        .setParameter("age", age)
+                        .getSingleResult());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Member> search(MemberSearchCondition condition) {
+        MemberSearchQuery query = MemberSearchQuery.of(condition, Sort.unsorted());
+        return query.bind(em.createQuery(query.contentJpql(), Member.class), condition)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Member> search(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchQuery query = MemberSearchQuery.of(condition, pageable.getSort());
+        return pageCountCache.getPage(query.countKey(condition), pageable,
+                () -> {
+                    TypedQuery<Member> contentQuery = query.bind(em.createQuery(query.contentJpql(), Member.class), condition);
+                    if (pageable.isPaged()) {
+                        contentQuery.setFirstResult((int) pageable.getOffset())
+                                .setMaxResults(pageable.getPageSize());
+                    }
+                    return contentQuery.getResultList();
+                },
+                () -> query.bind(em.createQuery(query.countJpql(), Long.class), condition)
+                        .getSingleResult());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <T> List<T> findProjectionsByUsername(String username, Class<T> type) {
+        if (type.isAssignableFrom(Member.class)) {
+            return em.createQuery("select m from Member m where m.username = :username", type)
+                    .setParameter("username", username)
+                    .getResultList();
+        }
+
+        if (!ClosedProjection.isClosed(type)) {
+            String jpql = PROJECTION_JPQL.computeIfAbsent(type, MemberRepositoryImpl::constructorProjectionJpql);
+            if (jpql.isEmpty()) { // 열린 Projections(@Value) - 엔티티를 조회해서 프록시로 감싼다.
+                return findProjectionsByUsername(username, Member.class).stream()
+                        .map(member -> PROJECTION_FACTORY.createProjection(type, member))
+                        .collect(Collectors.toList());
+            }
+            return em.createQuery(jpql, type)
+                    .setParameter("username", username)
+                    .getResultList();
+        }
+
+        ClosedProjection<T> projection = ClosedProjection.of(type);
+        List<?> rows = em.createQuery(PROJECTION_JPQL.computeIfAbsent(type, MemberRepositoryImpl::closedProjectionJpql))
+                .setParameter("username", username)
+                .getResultList();
+
+        List<T> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(projection.newInstance(row instanceof Object[] ? (Object[]) row : new Object[]{row}));
+        }
+        return result;
+    }
+
+    // select m.username, team_.name from Member m left join m.team team_ where m.username = :username
+    private static String closedProjectionJpql(Class<?> type) {
+        List<String> selections = new ArrayList<>();
+        Set<String> joins = new LinkedHashSet<>();
+        for (String path : ClosedProjection.of(type).getPaths()) {
+            int dot = path.lastIndexOf('.');
+            if (dot < 0) {
+                selections.add("m." + path);
+            } else {
+                String association = path.substring(0, dot);
+                String alias = association.replace('.', '_') + "_";
+                joins.add(" left join m." + association + " " + alias);
+                selections.add(alias + path.substring(dot));
+            }
+        }
+        return "select " + String.join(", ", selections) + " from Member m" + String.join("", joins) +
+                " where m.username = :username";
+    }
+
+    // DTO 클래스 - 생성자 파라미터 이름으로 select new ...(m.username, ...), 인터페이스(열린 Projections)면 빈 문자열
+    private static String constructorProjectionJpql(Class<?> type) {
+        if (type.isInterface()) {
+            return "";
+        }
+        PreferredConstructor<?, ?> constructor = PreferredConstructorDiscoverer.discover(type);
+        if (constructor == null) {
+            throw new IllegalArgumentException("Projections 로 사용할 생성자가 없습니다: " + type.getName());
+        }
+        return "select new " + type.getName() + "(" + constructor.getParameters().stream()
+                .map(parameter -> "m." + parameter.getName())
+                .collect(Collectors.joining(", ")) + ") from Member m where m.username = :username";
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberProjection> findByNativeProjection(Pageable pageable) {
+        return pageCountCache.getPage("Member.findByNativeProjection", pageable,
+                () -> {
+                    Query query = em.createNativeQuery(NATIVE_PROJECTION_SQL + nativeOrderBy(pageable.getSort()));
+                    if (pageable.isPaged()) {
+                        query.setFirstResult((int) pageable.getOffset())
+                                .setMaxResults(pageable.getPageSize());
+                    }
+                    List<?> rows = query.getResultList();
+
+                    List<MemberProjection> content = new ArrayList<>(rows.size());
+                    for (Object row : rows) {
+                        content.add(NATIVE_PROJECTION.newInstance((Object[]) row));
+                    }
+                    return content;
+                },
+                () -> ((Number) em.createNativeQuery("select count(*) from member").getSingleResult()).longValue());
+    }
+
+    private static String nativeOrderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        return sort.stream()
+                .map(order -> {
+                    String column = NATIVE_PROJECTION_COLUMNS.get(order.getProperty());
+                    if (column == null) {
+                        throw new IllegalArgumentException("정렬할 수 없는 속성입니다: " + order.getProperty());
+                    }
+                    return column + " " + order.getDirection().name();
+                })
+                .collect(Collectors.joining(", ", " order by ", ""));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberDto> findMemberDtos(Specification<Member> spec, Pageable pageable, boolean includeTeam) {
+        return findPageBySpec(spec, pageable,
+                root -> includeTeam
+                        ? List.of(root.get("id"), root.get("username"), join(root, "team").get("name"))
+                        : List.of(root.get("id"), root.get("username")),
+                row -> new MemberDto((Long) row[0], (String) row[1], includeTeam ? (String) row[2] : null));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <T> Page<T> findProjectionsBy(Specification<Member> spec, Class<T> type, Pageable pageable) {
+        ClosedProjection<T> projection = ClosedProjection.of(type);
+        return findPageBySpec(spec, pageable,
+                root -> projection.getPaths().stream()
+                        .map(path -> attributePath(root, path))
+                        .collect(Collectors.toList()),
+                projection::newInstance);
+    }
+
+    /**
+     * spec 조건으로 selections 컬럼만 조회해서 mapper 로 변환한다. (엔티티를 만들지 않으므로 영속성 컨텍스트/스냅샷도 없다)
+     * selections 를 만들 때 spec 이 이미 만든 조인이 있으면 재사용하고, 정렬은 selections 다음에 적용해서 같은 조인을 쓴다.
+     * count 쿼리에는 spec 조건만 들어간다.
+     */
+    private <R> Page<R> findPageBySpec(Specification<Member> spec, Pageable pageable,
+                                       Function<Root<Member>, List<? extends Selection<?>>> selections,
+                                       Function<Object[], R> mapper) {
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+
+        CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+        Root<Member> root = query.from(Member.class);
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.multiselect(new ArrayList<>(selections.apply(root)));
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        TypedQuery<Object[]> contentQuery = em.createQuery(query);
+        if (pageable.isPaged()) {
+            contentQuery.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize());
+        }
+        List<R> content = new ArrayList<>();
+        for (Object row : contentQuery.getResultList()) {
+            content.add(mapper.apply(row instanceof Object[] ? (Object[]) row : new Object[]{row}));
+        }
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
+            Root<Member> countRoot = countQuery.from(Member.class);
+            Predicate countPredicate = spec == null ? null : spec.toPredicate(countRoot, countQuery, builder);
+            if (countPredicate != null) {
+                countQuery.where(countPredicate);
+            }
+            countQuery.select(countQuery.isDistinct() ? builder.countDistinct(countRoot) : builder.count(countRoot));
+            return em.createQuery(countQuery).getSingleResult();
+        });
+    }
+
+    // "username" -> m.username, "team.name" -> (left join m.team).name
+    private static Path<?> attributePath(Root<Member> root, String path) {
+        int dot = path.lastIndexOf('.');
+        if (dot < 0) {
+            return root.get(path);
+        }
+        From<?, ?> from = root;
+        for (String association : path.substring(0, dot).split("\\.")) {
+            from = join(from, association);
+        }
+        return from.get(path.substring(dot + 1));
+    }
+
+    // spec 이 만든 조인(MemberSpec.teamName 의 inner join 등)이 있으면 재사용하고, 없으면 left join 한다.
+    private static Join<?, ?> join(From<?, ?> from, String association) {
+        for (Join<?, ?> join : from.getJoins()) {
+            if (join.getAttribute().getName().equals(association)) {
+                return join;
+            }
+        }
+        return from.join(association, JoinType.LEFT);
+    }
+
+    @Override
+    @Transactional
+    public int saveAllBatched(Iterable<Member> members, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("배치 크기는 1 이상이어야 합니다.");
+        }
+
+        int count = 0;
+        for (Member member : members) {
+            em.persist(member); // id 는 시퀀스에서 미리 확보해 둔 값으로 채워진다.
+
+            if (++count % batchSize == 0) {
+                em.flush(); // 모아둔 INSERT 를 배치로 전송
+                em.clear(); // 1차 캐시를 비워서 힙이 계속 커지지 않게 한다.
+            }
+        }
+
+        em.flush();
+        em.clear();
+        return count;
+    }
+
+    @Override
+    public Stream<MemberDto> streamMemberDto(int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize 는 1 이상이어야 합니다.");
+        }
+
+        // getResultStream() 은 하이버네이트 ScrollableResults(FORWARD_ONLY) 위에서 동작한다. -> List 로 모두 올리지 않는다.
+        return em.createQuery("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+                        " from Member m left join m.team t order by m.id", MemberDto.class)
+                .setHint(QueryHints.FETCH_SIZE, fetchSize) // JDBC fetch size
+                .setHint(QueryHints.READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public int bulkAgePlusInChunks(int age, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("청크 크기는 1 이상이어야 합니다.");
+        }
+
+        // 호출한 트랜잭션의 영속성 컨텍스트에서 수정 대상이 되는 회원만 골라둔다. (flush 후라 DB 값과 같다)
+        List<Member> affected = Collections.emptyList();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.flush();
+            affected = findManagedMembers(age);
+        }
+
+        // 청크마다 따로 커밋된다. (호출한 트랜잭션이 있으면 거기에 참여하므로 락은 커밋까지 유지된다.)
+        TransactionTemplate chunkTx = new TransactionTemplate(transactionManager);
+        int resultCount = 0;
+        long fromId = 0L; // 시퀀스 id 는 1부터
+        Long toId;
+        while ((toId = lastIdOfNextChunk(age, fromId, chunkSize)) != null) {
+            resultCount += updateAgeInRange(chunkTx, age, fromId, toId);
+            fromId = toId;
+        }
+
+        // 영속성 컨텍스트를 통째로 비우지 않고, 영향을 받은 회원만 DB 에서 다시 읽어온다.
+        affected.forEach(em::refresh);
+        return resultCount;
+    }
+
+    /**
+     * fromId 다음부터 수정 대상 회원 chunkSize 명 중 마지막 id - 더 없으면 null
+     */
+    private Long lastIdOfNextChunk(int age, long fromId, int chunkSize) {
+        List<Long> ids = em.createQuery("select m.id from Member m where m.id > :fromId and m.age >= :age order by m.id", Long.class)
+                .setParameter("fromId", fromId)
+                .setParameter("age", age)
+                .setMaxResults(chunkSize)
+                .getResultList();
+        return ids.isEmpty() ? null : ids.get(ids.size() - 1);
+    }
+
+    private int updateAgeInRange(TransactionTemplate chunkTx, int age, long fromId, long toId) {
+        // 벌크 JPQL 은 @Version 을 올리지 않으므로 직접 올린다. (bulkAgePlus 참고)
+        Integer updated = chunkTx.execute(status -> em.createQuery("update Member m set m.age = m.age + 1, m.version = m.version + 1" +
+                        " where m.age >= :age and m.id > :fromId and m.id <= :toId")
+                .setParameter("age", age)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .executeUpdate());
+        return updated;
+    }
+
+    private List<Member> findManagedMembers(int age) {
+        Collection<?> managedEntities = em.unwrap(SessionImplementor.class)
+                .getPersistenceContext()
+                .getEntitiesByKey()
+                .values();
+
+        return managedEntities.stream()
+                .filter(Member.class::isInstance)
+                .map(Member.class::cast)
+                .filter(member -> member.getAge() >= age)
+                .collect(Collectors.toList());
+    }
+
+    // 작업 전체를 트랜잭션 동기화 범위로 묶어서 수정자를 한 번만 조회한다. (TransactionScopedAuditorAware)
+    // DB 트랜잭션은 StatelessSession 이 자기 커넥션에서 청크마다 직접 연다.
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long updateMembersInChunks(int chunkSize, Function<List<Member>, ? extends Collection<Member>> processor) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("청크 크기는 1 이상이어야 합니다.");
+        }
+
+        SessionFactory sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactory.class);
+        long updated = 0; // 커밋된 청크에서 수정한 회원 수
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(chunkSize);
+            long lastId = 0L; // 시퀀스 id 는 1부터
+            while (true) {
+                // 청크마다 새 트랜잭션 - 커밋하면 그 청크의 행 락과 언두가 풀린다. (bulkAgePlusInChunks 와 같다)
+                Transaction tx = session.beginTransaction();
+                List<Member> chunk;
+                int chunkUpdated = 0;
+                try {
+                    // 커서 대신 id 기준으로 다음 청크를 읽는다. (커밋하면 커서가 닫힐 수 있다)
+                    chunk = session.createQuery("select m from Member m left join fetch m.team" +
+                                    " where m.id > :lastId order by m.id", Member.class)
+                            .setParameter("lastId", lastId)
+                            .setMaxResults(chunkSize)
+                            .getResultList();
+                    if (!chunk.isEmpty()) {
+                        lastId = chunk.get(chunk.size() - 1).getId(); // processor 가 List 를 바꿀 수 있으므로 먼저 읽어둔다.
+                        chunkUpdated = update(session, processor.apply(chunk));
+                    }
+                    tx.commit(); // 남은 배치 전송 후 커밋
+                } catch (RollbackException e) {
+                    // 커밋 중 남은 배치에서 난 예외(낙관적 락 충돌 등)는 원래 예외로 던져야 스프링 예외로 변환된다. (이미 롤백됨)
+                    throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                } catch (RuntimeException e) {
+                    if (tx.getStatus().canRollback()) {
+                        tx.rollback();
+                    }
+                    throw e;
+                }
+
+                updated += chunkUpdated;
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+        } finally {
+            if (updated > 0) {
+                evictMemberCaches(sessionFactory);
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long updateEachMember(int chunkSize, java.util.function.Predicate<Member> processor) {
+        return updateMembersInChunks(chunkSize, chunk -> chunk.stream()
+                .filter(processor)
+                .collect(Collectors.toList()));
+    }
+
+    // update 는 setJdbcBatchSize 만큼 모였을 때 한 번에 전송된다.
+    private int update(StatelessSession session, Collection<Member> members) {
+        for (Member member : members) {
+            auditListener.touchForUpdate(member);
+            session.update(member); // update ... where member_id = ? and version = ? (version + 1)
+        }
+        return members.size();
+    }
+
+    // StatelessSession 의 update 는 2차 캐시를 갱신하지 않고, 쿼리 캐시의 테이블 수정 시각(update timestamps)도 바꾸지 않는다.
+    private void evictMemberCaches(SessionFactory sessionFactory) {
+        sessionFactory.getCache().evictEntityData(Member.class);
+        sessionFactory.getCache().evictQueryRegions();
+    }
 }
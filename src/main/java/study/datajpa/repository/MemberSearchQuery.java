@@ -0,0 +1,119 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.util.StringUtils;
+import study.datajpa.dto.MemberSearchCondition;
+
+import javax.persistence.Query;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 검색 조건의 "모양"(어떤 조건이 있는지 + 정렬)마다 JPQL 을 한 번만 만들어서 재사용한다.
+ *
+ * Specification 은 호출할 때마다 Criteria 트리를 새로 만들고 JPQL 로 렌더링하지만,
+ * 여기서는 조건 값만 파라미터로 바인딩한다. JPQL 문자열이 같으므로 하이버네이트 쿼리 플랜 캐시도 그대로 적중한다.
+ */
+final class MemberSearchQuery {
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+
+    private static final int MAX_CACHED_SHAPES = 256; // 정렬 조합이 외부 입력이므로 무한히 늘어나지 않게 제한
+
+    // 접근 순서 LinkedHashMap - 가득 차면 가장 오래 쓰지 않은 모양을 버리므로 새 정렬도 계속 캐시된다. (LRU)
+    private static final Map<String, MemberSearchQuery> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<String, MemberSearchQuery>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, MemberSearchQuery> eldest) {
+                    return size() > MAX_CACHED_SHAPES;
+                }
+            });
+
+    private final String contentJpql;
+    private final String countJpql;
+    private final int shape;
+
+    private MemberSearchQuery(int shape, Sort sort) {
+        StringBuilder from = new StringBuilder(" from Member m");
+        if ((shape & TEAM_NAME) != 0) {
+            from.append(" join m.team t");
+        }
+        String where = "";
+        if (shape != 0) {
+            StringBuilder conditions = new StringBuilder();
+            if ((shape & USERNAME) != 0) {
+                conditions.append(" and m.username = :username");
+            }
+            if ((shape & TEAM_NAME) != 0) {
+                conditions.append(" and t.name = :teamName");
+            }
+            where = " where" + conditions.substring(" and".length());
+        }
+
+        this.shape = shape;
+        this.contentJpql = QueryUtils.applySorting("select m" + from + where, sort, "m");
+        this.countJpql = "select count(m)" + from + where;
+    }
+
+    static MemberSearchQuery of(MemberSearchCondition condition, Sort sort) {
+        int shape = shapeOf(condition);
+        String key = shape + ":" + sort;
+
+        MemberSearchQuery query = CACHE.get(key);
+        if (query == null) {
+            // 같은 모양을 동시에 만들 수도 있지만 결과가 같으므로 먼저 넣은 쪽을 쓴다.
+            query = new MemberSearchQuery(shape, sort);
+            MemberSearchQuery existing = CACHE.putIfAbsent(key, query);
+            if (existing != null) {
+                query = existing;
+            }
+        }
+        return query;
+    }
+
+    private static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (StringUtils.hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        return shape;
+    }
+
+    String contentJpql() {
+        return contentJpql;
+    }
+
+    String countJpql() {
+        return countJpql;
+    }
+
+    /**
+     * count 결과 캐시 키 - 정렬과 무관하게 조건 모양 + 값이 같으면 같은 개수다.
+     *
+     * 값에 구분자(':')가 들어 있어도 다른 조건과 키가 겹치지 않도록 값마다 길이를 앞에 붙인다.
+     * ex) ("a:b", "c") -> "3:a:b1:c", ("a", "b:c") -> "1:a3:b:c"
+     */
+    String countKey(MemberSearchCondition condition) {
+        return "Member.search:" + shape + ":" + lengthPrefixed(condition.getUsername()) + lengthPrefixed(condition.getTeamName());
+    }
+
+    private static String lengthPrefixed(String value) {
+        return value == null ? "-" : value.length() + ":" + value;
+    }
+
+    <Q extends Query> Q bind(Q query, MemberSearchCondition condition) {
+        if ((shape & USERNAME) != 0) {
+            query.setParameter("username", condition.getUsername());
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            query.setParameter("teamName", condition.getTeamName());
+        }
+        return query;
+    }
+}
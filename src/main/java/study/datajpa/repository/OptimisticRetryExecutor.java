@@ -0,0 +1,91 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.OptimisticLockException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @Version 엔티티를 수정하는 작업을 새 트랜잭션에서 실행하고, 다른 트랜잭션과 충돌하면 다시 시도한다.
+ *
+ * 비관적 락(findLockByUsername - PESSIMISTIC_WRITE)은 조회부터 커밋까지 행 락을 잡아서 다른 수정자를 줄 세우지만,
+ * 여기서는 락 없이 읽고 커밋 시점(update ... where version = ?)에만 충돌을 확인한다.
+ *
+ * - 매 시도마다 새 트랜잭션(REQUIRES_NEW) -> 충돌난 영속성 컨텍스트를 버리고 최신 값을 다시 읽는다.
+ * - 재시도 간격은 지수 백오프 + 지터 (동시에 충돌한 스레드들이 다시 동시에 부딪히지 않도록)
+ * - 메트릭: optimistic.lock.conflicts (충돌 횟수), optimistic.lock.failures (재시도를 다 쓰고 실패)
+ */
+@Component
+public class OptimisticRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final Counter conflicts;
+    private final Counter failures;
+
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.optimistic-retry.max-attempts:5}") int maxAttempts,
+                                   @Value("${app.optimistic-retry.initial-backoff:5ms}") Duration initialBackoff,
+                                   @Value("${app.optimistic-retry.max-backoff:100ms}") Duration maxBackoff) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("재시도 횟수는 1 이상이어야 합니다.");
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.conflicts = Counter.builder("optimistic.lock.conflicts")
+                .description("낙관적 락 충돌 횟수")
+                .register(meterRegistry);
+        this.failures = Counter.builder("optimistic.lock.failures")
+                .description("재시도를 모두 사용하고 실패한 작업 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param action 조회 + 수정 (변경 감지). 충돌 시 다시 호출되므로 트랜잭션 밖에 부수 효과를 남기면 안 된다.
+     */
+    public <T> T execute(TransactionCallback<T> action) {
+        long backoffNanos = initialBackoffNanos;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(action);
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    failures.increment();
+                    throw e;
+                }
+                sleep(backoffNanos, e);
+                backoffNanos = Math.min(backoffNanos * 2, maxBackoffNanos);
+            }
+        }
+    }
+
+    private static void sleep(long backoffNanos, RuntimeException conflict) {
+        if (backoffNanos <= 0) {
+            return;
+        }
+        try {
+            // 0.5 ~ 1.0 배 사이에서 랜덤하게 쉰다.
+            long sleepNanos = backoffNanos / 2 + ThreadLocalRandom.current().nextLong(backoffNanos / 2 + 1);
+            Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
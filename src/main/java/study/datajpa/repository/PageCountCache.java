@@ -0,0 +1,189 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Page 조회 시 count 쿼리를 최대한 생략한다.
+ *
+ * 1. 내용(content)이 페이지 크기보다 작으면 전체 개수를 계산할 수 있으므로 count 쿼리를 날리지 않는다.
+ * 2. 같은 조건(countKey)의 전체 개수는 짧은 시간(TTL) 동안 재사용한다.
+ * 3. (선택) count 쿼리를 별도 커넥션에서 내용 조회와 동시에 실행한다.
+ *
+ * 비동기 count 는 요청마다 커넥션을 하나 더 쓴다. 호출한 읽기 전용 트랜잭션이 이미 커넥션을 잡고 기다리므로,
+ * 커넥션 풀 크기만큼 요청이 몰리면 count 는 커넥션을 얻지 못한다. 그래서 async-count-wait 안에 count 가 커넥션을 얻지 못하면
+ * 호출한 트랜잭션의 커넥션으로 직접 센다. (풀 크기는 동시 페이지 요청 수의 2배 정도가 되어야 비동기의 이점이 있다.)
+ */
+@Component
+public class PageCountCache {
+
+    private static final int MAX_ENTRIES = 1000;
+
+    // 비동기 count 상태
+    private static final int PENDING = 0; // 커넥션을 얻기 전
+    private static final int RUNNING = 1; // 커넥션을 얻어서 세는 중
+    private static final int ABANDONED = 2; // 호출한 쪽이 직접 세거나 필요 없어짐 -> 커넥션을 얻어도 세지 않는다.
+
+    // 저장한 순서(= 만료 순서, TTL 이 모두 같다)로 유지 - 가득 차면 가장 오래된 것부터 버린다.
+    private final Map<String, CachedCount> counts = Collections.synchronizedMap(
+            new LinkedHashMap<String, CachedCount>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedCount> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            });
+    private final long ttlNanos;
+    private final boolean asyncCount;
+    private final long asyncWaitNanos;
+    private final AsyncTaskExecutor executor;
+    private final TransactionTemplate readOnlyTx;
+
+    public PageCountCache(@Value("${app.paging.count-cache-ttl:5s}") Duration ttl,
+                          @Value("${app.paging.async-count:false}") boolean asyncCount,
+                          @Value("${app.paging.async-count-wait:100ms}") Duration asyncWait,
+                          @Qualifier("queryExecutor") AsyncTaskExecutor executor,
+                          PlatformTransactionManager transactionManager) {
+        this.ttlNanos = ttl.toNanos();
+        this.asyncCount = asyncCount;
+        this.asyncWaitNanos = asyncWait.toNanos();
+        this.executor = executor;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /**
+     * @param countKey     count 결과를 캐시할 키 (쿼리 + 검색 조건)
+     * @param contentQuery 페이지 내용 조회
+     * @param countQuery   전체 개수 조회 - 필요할 때만 실행된다.
+     */
+    public <T> Page<T> getPage(String countKey, Pageable pageable, Supplier<List<T>> contentQuery, LongSupplier countQuery) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(contentQuery.get());
+        }
+
+        Long cachedTotal = lookup(countKey);
+        if (cachedTotal != null) {
+            return PageableExecutionUtils.getPage(contentQuery.get(), pageable, () -> cachedTotal);
+        }
+
+        if (!asyncCount) {
+            Page<T> page = PageableExecutionUtils.getPage(contentQuery.get(), pageable, countQuery);
+            // count 쿼리로 구했든, 마지막 페이지 내용으로 계산했든 전체 개수는 정확하므로 캐시해둔다.
+            store(countKey, page.getTotalElements());
+            return page;
+        }
+
+        // count 는 다른 스레드의 읽기 전용 트랜잭션(다른 커넥션)에서 내용 조회와 동시에 실행한다.
+        // 호출한 트랜잭션에서 flush 하지 않은 변경 내용은 반영되지 않는다.
+        AtomicInteger state = new AtomicInteger(PENDING);
+        CompletableFuture<Long> asyncTotal = countAsync(countQuery, state);
+
+        Page<T> page;
+        try {
+            page = PageableExecutionUtils.getPage(contentQuery.get(), pageable,
+                    () -> awaitCount(asyncTotal, state, countQuery));
+        } finally {
+            state.compareAndSet(PENDING, ABANDONED); // 개수가 필요 없었으면 아직 시작하지 않은 count 는 건너뛴다.
+        }
+
+        store(countKey, page.getTotalElements());
+        return page;
+    }
+
+    private CompletableFuture<Long> countAsync(LongSupplier countQuery, AtomicInteger state) {
+        try {
+            return CompletableFuture.supplyAsync(() -> readOnlyTx.execute(status -> {
+                // 트랜잭션 시작 시 커넥션을 얻었다. 그 사이 호출한 쪽이 포기했으면 세지 않고 바로 반납한다.
+                return state.compareAndSet(PENDING, RUNNING) ? countQuery.getAsLong() : null;
+            }), executor);
+        } catch (TaskRejectedException e) {
+            state.set(ABANDONED); // 실행기 큐가 가득 찼다. -> 호출한 트랜잭션에서 센다.
+            return null;
+        }
+    }
+
+    private long awaitCount(CompletableFuture<Long> asyncTotal, AtomicInteger state, LongSupplier countQuery) {
+        if (asyncTotal == null) {
+            return countQuery.getAsLong();
+        }
+        try {
+            return asyncTotal.get(asyncWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // 아직 커넥션을 얻지 못했다. 풀이 모자라면 서로 기다리게 되므로 내 커넥션으로 직접 센다.
+            if (state.compareAndSet(PENDING, ABANDONED)) {
+                return countQuery.getAsLong();
+            }
+            return asyncTotal.join(); // 이미 커넥션을 얻어서 세는 중
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("count 쿼리를 기다리는 중 인터럽트되었습니다.", e);
+        } catch (ExecutionException e) {
+            if (state.compareAndSet(PENDING, ABANDONED)) {
+                return countQuery.getAsLong(); // 커넥션을 얻지 못하고 실패했다.
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Long lookup(String countKey) {
+        CachedCount cached = counts.get(countKey);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt - System.nanoTime() < 0) {
+            counts.remove(countKey, cached);
+            return null;
+        }
+        return cached.total;
+    }
+
+    private void store(String countKey, long total) {
+        long now = System.nanoTime();
+        synchronized (counts) {
+            // 만료된 것은 앞쪽에 모여 있으므로 앞에서부터 만료되지 않은 것을 만날 때까지만 지운다.
+            Iterator<CachedCount> iterator = counts.values().iterator();
+            while (iterator.hasNext() && iterator.next().expiresAt - now < 0) {
+                iterator.remove();
+            }
+            counts.remove(countKey); // 다시 넣어서 맨 뒤(가장 늦게 만료)로 보낸다.
+            counts.put(countKey, new CachedCount(total, now + ttlNanos));
+        }
+    }
+
+    private static class CachedCount {
+
+        private final long total;
+        private final long expiresAt;
+
+        CachedCount(long total, long expiresAt) {
+            this.total = total;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
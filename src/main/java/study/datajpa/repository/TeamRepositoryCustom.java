@@ -0,0 +1,16 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.datajpa.entity.Team;
+
+public interface TeamRepositoryCustom {
+
+    /**
+     * 팀 목록을 members 컬렉션까지 초기화해서 페이징 조회한다.
+     *
+     * 컬렉션 페치 조인 + 페이징은 하이버네이트가 전체 결과를 메모리에 올려서 페이징하므로(HHH000104),
+     * 팀 id 만 먼저 DB 에서 페이징하고, 그 id 들의 팀과 회원을 IN 쿼리 한 번으로 가져온다.
+     */
+    Page<Team> findAllWithMembers(Pageable pageable);
+}
@@ -0,0 +1,57 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    private final EntityManager em;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Team> findAllWithMembers(Pageable pageable) {
+        // 1. 팀 id 만 페이징 -> LIMIT/OFFSET 이 DB 에서 적용된다.
+        TypedQuery<Long> idQuery = em.createQuery(
+                QueryUtils.applySorting("select t.id from Team t", pageable.getSort(), "t"), Long.class);
+        if (pageable.isPaged()) {
+            idQuery.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize());
+        }
+        List<Long> ids = idQuery.getResultList();
+
+        // 2. 이번 페이지 팀들만 회원과 함께 페치 조인
+        List<Team> content = ids.isEmpty() ? Collections.emptyList() : findWithMembersInOrder(ids);
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> em.createQuery("select count(t) from Team t", Long.class).getSingleResult());
+    }
+
+    private List<Team> findWithMembersInOrder(List<Long> ids) {
+        List<Team> teams = em.createQuery("select distinct t from Team t left join fetch t.members where t.id in :ids", Team.class)
+                .setParameter("ids", ids)
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false) // distinct 는 엔티티 중복 제거용, SQL 에는 넣지 않는다.
+                .getResultList();
+
+        // IN 쿼리는 순서를 보장하지 않으므로 1번에서 정렬된 id 순서대로 다시 맞춘다.
+        Map<Long, Team> teamById = teams.stream()
+                .collect(Collectors.toMap(Team::getId, Function.identity()));
+        return ids.stream()
+                .map(teamById::get)
+                .collect(Collectors.toList());
+    }
+}
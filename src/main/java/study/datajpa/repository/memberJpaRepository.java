@@ -86,7 +86,8 @@ public class memberJpaRepository {
     // 벌크성 수정 쿼리 - 대용량 더티 체킹
     public int bulkAgePlus(int age) {
 
-        int resultCount = em.createQuery("update Member m set m.age = m.age + 1" +
+        // @Version 도 올려야 먼저 읽어둔 엔티티가 이 변경을 덮어쓰지 못한다.
+        int resultCount = em.createQuery("update Member m set m.age = m.age + 1, m.version = m.version + 1" +
                         " where m.age >= :age")
                 .setParameter("age", age)
                 .executeUpdate();
@@ -0,0 +1,79 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.MemberRepository;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ConnectionPoolMetricsTest {
+
+    @Autowired DataSource dataSource;
+    @Autowired ConnectionPoolProperties poolProperties;
+    @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired MeterRegistry meterRegistry;
+
+    @Test
+    void poolSizeFromCoresAndDatabaseLimit() {
+        HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        assertThat(hikari.getMaximumPoolSize())
+                .isEqualTo(Math.min(cores * 2 + poolProperties.getEffectiveSpindleCount(), poolProperties.getDbMaxConnections()));
+
+        // DB 한도를 여러 인스턴스가 나눠 쓴다.
+        ConnectionPoolProperties shared = new ConnectionPoolProperties();
+        shared.setDbMaxConnections(100);
+        shared.setInstances(20);
+        assertThat(shared.maximumPoolSize(32)).isEqualTo(5);
+    }
+
+    @Test
+    void recordsConnectionHoldTimePerRepositoryMethod() {
+        // when - 리포지토리 메서드가 연 트랜잭션
+        memberRepository.findListByUsername("poolMetricsMember");
+
+        // then
+        Timer hold = meterRegistry.find("repository.connection.hold")
+                .tags("repository", "MemberRepository", "method", "findListByUsername")
+                .timer();
+        assertThat(hold).isNotNull();
+        long holdCount = hold.count();
+        assertThat(holdCount).isPositive();
+        assertThat(hold.takeSnapshot().percentileValues()).hasSize(3); // p50, p95, p99
+
+        // when - 바깥(서비스) 트랜잭션이 반납하는 커넥션은 리포지토리 메서드에 기록하지 않는다.
+        Timer outside = meterRegistry.find("repository.connection.hold").tags("repository", "none").timer();
+        long outsideBefore = outside.count();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberRepository.findListByUsername("poolMetricsMember");
+            memberRepository.findListByUsername("poolMetricsMember");
+        });
+
+        // then
+        assertThat(hold.count()).isEqualTo(holdCount);
+        assertThat(outside.count()).isEqualTo(outsideBefore + 1);
+    }
+
+    @Test
+    void exportsHikariPoolMetrics() {
+        memberRepository.findListByUsername("poolMetricsMember");
+
+        assertThat(meterRegistry.find("hikaricp.connections.acquire").tag("pool", "primary").timer().count()).isPositive();
+        assertThat(meterRegistry.find("hikaricp.connections.active").tag("pool", "primary").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.idle").tag("pool", "primary").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.pending").tag("pool", "primary").gauge()).isNotNull();
+    }
+}
@@ -0,0 +1,100 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.datasource.replica.url=${spring.datasource.url}", // 같은 H2 DB 를 별도 커넥션 풀로 연결해서 replica 로 사용
+        "app.datasource.replica.check-interval=1h", // 시작할 때 한 번만 확인 (확인 중인 커넥션이 활성 커넥션 수 검증에 섞이지 않게)
+        "spring.jpa.hibernate.ddl-auto=update" // 다른 테스트 컨텍스트가 만든 테이블을 지우지 않는다.
+})
+class ReplicaRoutingTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired EntityManager em;
+    @Autowired @Qualifier("primaryDataSource") HikariDataSource primaryDataSource;
+    @Autowired @Qualifier("replicaDataSource") HikariDataSource replicaDataSource;
+
+    @Test
+    void readOnlyTransactionUsesReplica() {
+        Member member = memberRepository.save(new Member("replicaMember", 10));
+        try {
+            TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+            readOnlyTx.setReadOnly(true);
+
+            readOnlyTx.executeWithoutResult(status -> {
+                Member findMember = memberRepository.findMemberByUsername("replicaMember");
+
+                assertThat(activeConnections(replicaDataSource)).isEqualTo(1);
+                assertThat(activeConnections(primaryDataSource)).isZero();
+
+                // 읽기 전용 세션 -> 스냅샷을 만들지 않고, flush 도 하지 않는다.
+                Session session = em.unwrap(Session.class);
+                assertThat(session.isReadOnly(findMember)).isTrue();
+                assertThat(session.getHibernateFlushMode()).isEqualTo(FlushMode.MANUAL);
+            });
+        } finally {
+            memberRepository.delete(member);
+        }
+    }
+
+    @Test
+    void readWriteTransactionUsesPrimary() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberRepository.findMemberByUsername("replicaMember");
+
+            assertThat(activeConnections(primaryDataSource)).isEqualTo(1);
+            assertThat(activeConnections(replicaDataSource)).isZero();
+        });
+    }
+
+    @Test
+    void fallsBackToPrimaryWhenReplicaLags() {
+        ReplicaRoutingDataSource lagging = new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource,
+                "select 10", Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(1));
+        ReplicaRoutingDataSource upToDate = new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource,
+                "select 0", Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(1));
+
+        // 백그라운드 확인 대신 직접 한 번 확인한다. (요청 스레드는 결과만 읽는다)
+        lagging.refreshReplicaAvailability();
+        upToDate.refreshReplicaAvailability();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            assertThat(lagging.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Route.PRIMARY);
+            assertThat(upToDate.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Route.REPLICA);
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    @Test
+    void replicaPoolInheritsPrimaryPoolSettings() {
+        assertThat(replicaDataSource.getLeakDetectionThreshold()).isEqualTo(primaryDataSource.getLeakDetectionThreshold());
+        assertThat(replicaDataSource.getMaxLifetime()).isEqualTo(primaryDataSource.getMaxLifetime());
+        assertThat(replicaDataSource.getConnectionTimeout()).isEqualTo(1000); // 복제본이 죽었을 때 오래 기다리지 않는다.
+        assertThat(replicaDataSource.getPoolName()).isEqualTo("replica");
+    }
+
+    private static int activeConnections(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections(); // 아직 한 번도 사용하지 않은 풀
+    }
+}
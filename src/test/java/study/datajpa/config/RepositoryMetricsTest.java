@@ -0,0 +1,64 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MeterRegistry 는 같은 스프링 컨텍스트를 쓰는 다른 테스트 클래스와 공유된다. -> 호출 전후 증가량으로 검증한다.
+ */
+@SpringBootTest
+@Transactional // 다른 테스트의 회원 수 검증에 영향을 주지 않도록 롤백한다.
+class RepositoryMetricsTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MeterRegistry meterRegistry;
+
+    @Test
+    void recordsMetricsPerRepositoryMethod() {
+        // given
+        memberRepository.save(new Member("metricsMember1", 10));
+        memberRepository.save(new Member("metricsMember2", 10));
+
+        long callsBefore = invocationCount();
+        double rowsBefore = summaryTotal("repository.rows");
+        double statementsBefore = summaryTotal("repository.statements");
+
+        // when
+        memberRepository.findListByUsername("metricsMember1");
+
+        // then
+        assertThat(invocationCount() - callsBefore).isEqualTo(1);
+        assertThat(summaryTotal("repository.rows") - rowsBefore).isEqualTo(1);
+        // auto flush(INSERT 2건) + SELECT 1건
+        assertThat(summaryTotal("repository.statements") - statementsBefore).isGreaterThanOrEqualTo(1);
+
+        DistributionSummary persistenceContextSize = meterRegistry.find("repository.persistence.context.size")
+                .tags("repository", "MemberRepository", "method", "findListByUsername")
+                .summary();
+        assertThat(persistenceContextSize.max()).isGreaterThanOrEqualTo(2);
+    }
+
+    // 메서드별 Meter 는 처음 호출할 때 만들어진다. (없으면 0)
+    private long invocationCount() {
+        Timer timer = meterRegistry.find("repository.invocations")
+                .tags("repository", "MemberRepository", "method", "findListByUsername")
+                .timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private double summaryTotal(String name) {
+        DistributionSummary summary = meterRegistry.find(name)
+                .tags("repository", "MemberRepository", "method", "findListByUsername")
+                .summary();
+        return summary != null ? summary.totalAmount() : 0;
+    }
+}
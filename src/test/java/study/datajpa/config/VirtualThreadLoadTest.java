@@ -0,0 +1,140 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.servlet.Filter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * virtual 프로필 부하 테스트 (JDK 21 이상에서만 실행)
+ *
+ * 톰캣 기본 스레드 풀(threads.max = 200)의 5배인 1000개 요청을 동시에 붙잡아 둔 뒤 회원을 조회한다.
+ * 플랫폼 스레드였다면 요청 수만큼 스레드(스택)가 필요하지만, 가상 스레드는 캐리어 스레드 몇 개로 모두 처리해야 한다.
+ */
+@EnabledIf("virtualThreadsSupported")
+@ActiveProfiles("virtual")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.hibernate.ddl-auto=update" // 다른 테스트 컨텍스트가 만든 테이블을 지우지 않는다.
+})
+class VirtualThreadLoadTest {
+
+    private static final int REQUESTS = 1000;
+
+    static boolean virtualThreadsSupported() {
+        return VirtualThreads.isSupported();
+    }
+
+    @LocalServerPort int port;
+    @Autowired MemberRepository memberRepository;
+
+    Member member;
+
+    @BeforeEach
+    void setUp() {
+        member = memberRepository.save(new Member("virtualMember", 10));
+        InFlightBarrier.reset(REQUESTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteById(member.getId());
+    }
+
+    @Test
+    void concurrentRequestsOnVirtualThreads() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        threads.resetPeakThreadCount();
+
+        // 클라이언트 쪽도 가상 스레드를 써야 플랫폼 스레드 수가 서버 측정값만 반영한다.
+        ExecutorService clientExecutor = VirtualThreads.newThreadPerTaskExecutor("client-");
+        HttpClient client = HttpClient.newBuilder().executor(clientExecutor).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/members/" + member.getId())).build();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).join();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        clientExecutor.shutdown();
+
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        int peakThreads = threads.getPeakThreadCount();
+        System.out.println("requests = " + REQUESTS + ", max in-flight = " + InFlightBarrier.maxInFlight.get()
+                + ", peak platform threads = " + peakThreads + ", elapsed = " + elapsedMillis + "ms"
+                + ", heap growth = " + (heapAfter - heapBefore) / 1024 + "KB");
+
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertThat(response.join().statusCode()).isEqualTo(200);
+            assertThat(response.join().body()).isEqualTo("virtualMember");
+        }
+        assertThat(InFlightBarrier.maxInFlight.get()).isEqualTo(REQUESTS); // 1000개 요청이 동시에 서버 안에 있었다.
+        assertThat(peakThreads).isLessThan(200); // 톰캣 기본 스레드 풀 크기보다 적은 플랫폼 스레드로 처리했다.
+    }
+
+    /**
+     * 요청을 모두 받을 때까지 각 요청을 붙잡아 둔다. -> 서버가 동시에 처리 중인 요청 수를 센다.
+     */
+    @TestConfiguration
+    static class InFlightBarrier {
+
+        static final AtomicInteger inFlight = new AtomicInteger();
+        static final AtomicInteger maxInFlight = new AtomicInteger();
+        static volatile CountDownLatch allArrived = new CountDownLatch(0);
+
+        static void reset(int requests) {
+            inFlight.set(0);
+            maxInFlight.set(0);
+            allArrived = new CountDownLatch(requests);
+        }
+
+        @Bean
+        public FilterRegistrationBean<Filter> inFlightBarrierFilter() {
+            Filter filter = (request, response, chain) -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    allArrived.countDown();
+                    allArrived.await(30, TimeUnit.SECONDS); // 가상 스레드는 기다리는 동안 캐리어 스레드를 반납한다.
+                    chain.doFilter(request, response);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            };
+            FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>(filter);
+            registration.addUrlPatterns("/members/*");
+            return registration;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package study.datajpa.entity;
 
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -11,6 +13,9 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.datajpa.repository.StatementCountAssertions.assertMaxStatements;
+
 @SpringBootTest
 @Transactional
 @Rollback(false)
@@ -80,4 +85,145 @@ class MemberTest {
         // findMember.modifiedBy = 1aa6acce-914d-4124-9c41-4fdbddc064ce
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void auditorPerTransaction() {
+        // given
+        Member member1 = memberRepository.save(new Member("auditMember1"));
+        Member member2 = memberRepository.save(new Member("auditMember2"));
+
+        em.flush();
+
+        // then - 같은 트랜잭션에서는 등록자를 한 번만 조회해서 같은 값을 쓴다.
+        assertThat(member1.getCreatedBy()).hasSize(22);
+        assertThat(member1.getCreatedBy()).isSameAs(member2.getCreatedBy());
+        assertThat(member1.getLastModifiedBy()).isSameAs(member1.getCreatedBy());
+        assertThat(member1.getCreatedDate()).isNotNull();
+        assertThat(member1.getLastModifiedDate()).isEqualTo(member1.getCreatedDate());
+
+        // when - 수정
+        member1.setUsername("auditMember1-1");
+        em.flush();
+
+        // then
+        assertThat(member1.getLastModifiedDate()).isAfterOrEqualTo(member1.getCreatedDate());
+        assertThat(member1.getLastModifiedBy()).isSameAs(member2.getCreatedBy());
+    }
+
+    @Test
+    @Rollback
+    public void changeTeamWithoutLoadingMembers() {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        em.persist(member1);
+        em.persist(member2);
+
+        em.flush();
+        em.clear();
+
+        Member findMember1 = em.find(Member.class, member1.getId()); // team 은 프록시
+        Team findTeamA = em.find(Team.class, teamA.getId());
+        Team findTeamB = em.find(Team.class, teamB.getId());
+        Long teamAVersion = findTeamA.getVersion();
+        Long teamBVersion = findTeamB.getVersion();
+        long teamUpdates = teamUpdateCount();
+
+        // when - 팀에 회원 추가, 다른 팀으로 이동
+        Member member3 = new Member("member3", 30, findTeamA);
+        em.persist(member3);
+        findMember1.changeTeam(findTeamB);
+
+        // then - members 는 로딩되지 않는다.
+        assertThat(Hibernate.isInitialized(findTeamA.getMembers())).isFalse();
+        assertThat(Hibernate.isInitialized(findTeamB.getMembers())).isFalse();
+
+        // 개수 / 포함 여부는 SQL 로 확인한다. (쌓여 있던 변경은 먼저 flush)
+        assertThat(findTeamA.memberCount()).isEqualTo(2);
+        assertThat(findTeamB.memberCount()).isEqualTo(1);
+        boolean contains = assertMaxStatements(em, 1, () -> findTeamA.hasMember(member3));
+        assertThat(contains).isTrue();
+        assertThat(findTeamA.hasMember(findMember1)).isFalse();
+        assertThat(findTeamB.hasMember(findMember1)).isTrue();
+        assertThat(Hibernate.isInitialized(findTeamA.getMembers())).isFalse();
+
+        // 회원 추가/이동은 팀 version 을 올리지 않는다. (team update 없음)
+        em.flush();
+        assertThat(teamUpdateCount()).isEqualTo(teamUpdates);
+        assertThat(findTeamA.getVersion()).isEqualTo(teamAVersion);
+        assertThat(findTeamB.getVersion()).isEqualTo(teamBVersion);
+
+        // 로딩하면 DB 와 같다.
+        assertThat(findTeamA.getMembers()).extracting("username").containsExactlyInAnyOrder("member2", "member3");
+        assertThat(findTeamB.getMembers()).containsExactly(findMember1);
+
+        // 로딩된 컬렉션은 바로 반영된다.
+        findMember1.changeTeam(findTeamA);
+        assertThat(findTeamA.getMembers()).hasSize(3).contains(findMember1);
+        assertThat(findTeamB.getMembers()).isEmpty();
+    }
+
+    @Test
+    @Rollback
+    public void leaveTeamWithoutLoadingMembers() {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+
+        Team findTeamA = em.find(Team.class, teamA.getId());
+        Team findTeamB = em.find(Team.class, teamB.getId());
+        assertThat(findTeamA.memberCount()).isEqualTo(2); // 로딩 전 개수를 한 번 세어둔다.
+
+        // when - 팀 A 에는 아무도 추가하지 않고 떠나기만 한다. (팀 A 컬렉션에 쌓인 변경이 없다.)
+        Member leaving = em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                .getSingleResult();
+        leaving.changeTeam(findTeamB);
+
+        // then - 떠난 회원은 세지 않는다.
+        assertThat(Hibernate.isInitialized(findTeamA.getMembers())).isFalse();
+        assertThat(findTeamA.memberCount()).isEqualTo(1);
+        assertThat(findTeamA.hasMember(leaving)).isFalse();
+        assertThat(Hibernate.isInitialized(findTeamA.getMembers())).isFalse();
+    }
+
+    @Test
+    @Rollback
+    public void changeTeamOfDetachedTeam() {
+        // given - 준영속 팀 (members 로딩 전)
+        Team team = new Team("teamA");
+        em.persist(team);
+        em.persist(new Member("member1", 10, team));
+        em.flush();
+        em.clear();
+
+        Team detachedTeam = em.find(Team.class, team.getId());
+        em.detach(detachedTeam);
+
+        // when - 컬렉션을 로딩하지 않으므로 LazyInitializationException 이 나지 않는다.
+        Member member2 = new Member("member2", 20, detachedTeam);
+        em.persist(member2);
+        em.flush();
+        em.clear();
+
+        // then - 회원의 team_id 가 기준
+        assertThat(em.find(Team.class, team.getId()).getMembers()).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2");
+    }
+
+    private long teamUpdateCount() {
+        return em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics()
+                .getEntityStatistics(Team.class.getName())
+                .getUpdateCount();
+    }
+}
@@ -3,8 +3,15 @@ package study.datajpa.repository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Item;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
 @SpringBootTest
 public class ItemRepositoryTest {
 
@@ -33,4 +40,48 @@ public class ItemRepositoryTest {
          * merge를 호출해서 병합한다.
          */
     }
+
+    @Test
+    void upsert() {
+        // 새 item -> INSERT
+        Item item = new Item("upsert-A");
+        assertThat(itemRepository.upsert(item)).isEqualTo(1);
+        assertThat(item.getCreatedDate()).isNull(); // 넘긴 item 은 바뀌지 않는다.
+        LocalDateTime createdDate = itemRepository.findById("upsert-A").get().getCreatedDate();
+        assertThat(createdDate).isNotNull(); // 등록일은 DB 에만 채워진다.
+
+        // 같은 id 로 다시 적재 (외부에서 다시 들어온 item) -> SELECT, INSERT 없이 그대로 둔다.
+        assertThat(itemRepository.upsert(new Item("upsert-A"))).isZero();
+        assertThat(itemRepository.findById("upsert-A").get().getCreatedDate()).isEqualTo(createdDate);
+    }
+
+    @Test
+    void upsertAll() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 120; i++) { // batch_size(50) 보다 크게
+            items.add(new Item("upsertAll-" + i));
+        }
+        itemRepository.upsertAll(items.subList(0, 20)); // 일부는 이미 있다.
+
+        // when
+        int inserted = itemRepository.upsertAll(items);
+
+        // then
+        assertThat(inserted).isEqualTo(100);
+        assertThat(itemRepository.findAllById(List.of("upsertAll-0", "upsertAll-119"))).hasSize(2);
+    }
+
+    @Test
+    @Transactional
+    void upsertAfterPersistInSameTransaction() {
+        // persist 만 하고 아직 flush 하지 않은 item
+        itemRepository.save(new Item("upsert-pending"));
+
+        // when - MERGE 전에 flush 하므로 이미 있는 item 으로 본다.
+        int inserted = itemRepository.upsert(new Item("upsert-pending"));
+        itemRepository.flush(); // 중복 키 오류가 나지 않는다.
+
+        // then
+        assertThat(inserted).isZero();
+    }
 }
@@ -0,0 +1,138 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.datajpa.repository.StatementCountAssertions.assertMaxStatements;
+
+/**
+ * StatelessSession 대량 처리 - 별도 커넥션에서 실행되므로 테스트 데이터를 커밋해두고, 끝나면 지운다.
+ * 다른 테스트가 남긴 회원도 함께 조회되므로 processor 는 이 테스트의 회원만 수정한다.
+ */
+@SpringBootTest
+class MemberBatchUpdateTest {
+
+    private static final int MEMBER_COUNT = 120;
+    private static final int CHUNK_SIZE = 50;
+    private static final String PREFIX = "batchUpdateMember";
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @PersistenceContext EntityManager em;
+
+    Team team;
+    List<Member> members;
+
+    @BeforeEach
+    void setUp() {
+        team = teamRepository.save(new Team("batchUpdateTeam"));
+        List<Member> newMembers = new ArrayList<>();
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            newMembers.add(new Member(PREFIX + i, i, team));
+        }
+        members = memberRepository.saveAll(newMembers);
+    }
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteAllByIdInBatch(members.stream().map(Member::getId).collect(Collectors.toList()));
+        teamRepository.deleteById(team.getId());
+    }
+
+    @Test
+    void updateEachMember() {
+        Long firstId = members.get(0).getId();
+        memberRepository.findById(firstId); // 2차 캐시에 올려둔다.
+        long chunks = (memberRepository.count() + CHUNK_SIZE - 1) / CHUNK_SIZE; // 다른 테스트의 회원도 함께 읽는다.
+
+        // when - 청크마다 select 1번 + update 배치 1번 (+ 마지막 빈 청크 select)
+        long updated = assertMaxStatements(em, (int) (chunks * 2 + 1), () -> memberRepository.updateEachMember(CHUNK_SIZE, member -> {
+            if (!member.getUsername().startsWith(PREFIX)) {
+                return false;
+            }
+            member.setAge(member.getAge() + 1);
+            return true;
+        }));
+
+        // then - 2차 캐시를 비웠으므로 DB 에서 다시 읽는다.
+        assertThat(updated).isEqualTo(MEMBER_COUNT);
+        Member first = memberRepository.findById(firstId).get();
+        assertThat(first.getAge()).isEqualTo(1);
+        assertThat(first.getVersion()).isEqualTo(1);
+        assertThat(first.getLastModifiedBy()).isNotNull().isNotEqualTo(first.getCreatedBy());
+
+        // 수정자는 작업마다 한 번만 조회한다.
+        Member last = memberRepository.findById(members.get(MEMBER_COUNT - 1).getId()).get();
+        assertThat(last.getAge()).isEqualTo(MEMBER_COUNT);
+        assertThat(last.getLastModifiedBy()).isEqualTo(first.getLastModifiedBy());
+    }
+
+    @Test
+    void updateMembersInChunks() {
+        List<Integer> chunkSizes = new ArrayList<>();
+
+        // when - 나이가 짝수인 회원만 이름 뒤에 팀 이름을 붙인다. (team 은 함께 조회된다.)
+        long updated = memberRepository.updateMembersInChunks(CHUNK_SIZE, chunk -> {
+            chunkSizes.add(chunk.size());
+            return chunk.stream()
+                    .filter(member -> member.getUsername().startsWith(PREFIX) && member.getAge() % 2 == 0)
+                    .peek(member -> member.setUsername(member.getUsername() + "-" + member.getTeam().getName()))
+                    .collect(Collectors.toList());
+        });
+
+        // then
+        assertThat(updated).isEqualTo(MEMBER_COUNT / 2);
+        assertThat(chunkSizes).allMatch(size -> size <= CHUNK_SIZE);
+        assertThat(memberRepository.findById(members.get(0).getId()).get().getUsername())
+                .isEqualTo(PREFIX + "0-batchUpdateTeam");
+        assertThat(memberRepository.findById(members.get(1).getId()).get().getVersion()).isZero();
+    }
+
+    @Test
+    void optimisticLockConflictRollsBackOnlyThatChunk() {
+        Long staleId = members.get(MEMBER_COUNT - 1).getId();
+        Map<Long, Integer> originalAges = members.stream().collect(Collectors.toMap(Member::getId, Member::getAge));
+        List<Long> conflictChunk = new ArrayList<>();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        // when - 마지막 회원이 든 청크를 처리하는 도중 다른 트랜잭션이 그 회원을 먼저 수정한다.
+        assertThatThrownBy(() -> memberRepository.updateMembersInChunks(CHUNK_SIZE, chunk -> {
+            List<Member> mine = chunk.stream()
+                    .filter(member -> member.getUsername().startsWith(PREFIX))
+                    .collect(Collectors.toList());
+            if (mine.stream().anyMatch(member -> member.getId().equals(staleId))) {
+                tx.executeWithoutResult(status -> memberRepository.findById(staleId).get().setAge(-1));
+                mine.forEach(member -> conflictChunk.add(member.getId()));
+            }
+            mine.forEach(member -> member.setAge(member.getAge() + 1));
+            return mine;
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+
+        // then - 앞서 커밋된 청크는 남는다. (첫 회원과 마지막 회원은 119 칸 떨어져 있어서 다른 청크다)
+        assertThat(memberRepository.findById(members.get(0).getId()).get().getAge()).isEqualTo(1);
+
+        // 충돌한 청크는 모두 롤백된다.
+        assertThat(memberRepository.findById(staleId).get().getAge()).isEqualTo(-1);
+        conflictChunk.stream()
+                .filter(id -> !id.equals(staleId))
+                .forEach(id -> assertThat(memberRepository.findById(id).get().getAge()).isEqualTo(originalAges.get(id)));
+    }
+}
@@ -0,0 +1,81 @@
+package study.datajpa.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 2차 캐시는 트랜잭션이 커밋된 후에 채워지므로, 테스트 전체를 하나의 트랜잭션으로 묶지 않는다.
+ */
+@SpringBootTest
+class MemberCacheTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        emf.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @Test
+    void findByIdHitsSecondLevelCache() {
+        // given
+        Team team = teamRepository.save(new Team("cacheTeam"));
+        Member member = memberRepository.save(new Member("cacheMember", 10, team));
+
+        // when
+        memberRepository.findById(member.getId()); // 저장할 때 캐시에 올라가 있다.
+        teamRepository.findById(team.getId());
+
+        // then
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(2);
+        assertThat(statistics.getDomainDataRegionStatistics("member").getHitCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics("team").getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void namedQueryUsesQueryCache() {
+        // given
+        memberRepository.save(new Member("queryCacheMember", 10));
+
+        // when
+        memberRepository.findByUsername("queryCacheMember"); // miss -> DB 조회 후 캐시에 저장
+        List<Member> result = memberRepository.findByUsername("queryCacheMember"); // hit
+
+        // then
+        assertThat(result).hasSize(1);
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void bulkUpdateInvalidatesCaches() {
+        // given
+        Member member = memberRepository.save(new Member("bulkCacheMember", 100));
+        memberRepository.findByUsername("bulkCacheMember"); // 쿼리 캐시에 올린다.
+
+        // when
+        memberRepository.bulkAgePlus(100);
+
+        // then - 엔티티 캐시, 쿼리 캐시 모두 무효화돼서 DB 에서 새 값을 읽는다.
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(101);
+        assertThat(memberRepository.findByUsername("bulkCacheMember").get(0).getAge()).isEqualTo(101);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,134 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 같은 회원의 나이를 여러 스레드가 동시에 올린다. - 비관적 락 vs 낙관적 락 + 재시도
+ * 두 방식 모두 갱신 손실(lost update)이 없어야 하고, 처리 시간을 비교해서 출력한다.
+ */
+@SpringBootTest
+class MemberConcurrencyTest {
+
+    private static final int THREADS = 4;
+    private static final int UPDATES_PER_THREAD = 25;
+    private static final String USERNAME = "concurrentMember";
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired MeterRegistry meterRegistry;
+
+    Member member;
+
+    @BeforeEach
+    void setUp() {
+        member = memberRepository.save(new Member(USERNAME, 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        memberRepository.deleteById(member.getId());
+    }
+
+    @Test
+    void optimisticLockWithRetry() throws Exception {
+        // 한 행에 모든 스레드가 몰리는 최악의 경우라 재시도 횟수를 넉넉하게 준다.
+        OptimisticRetryExecutor optimisticRetryExecutor = new OptimisticRetryExecutor(transactionManager, meterRegistry,
+                100, Duration.ofMillis(1), Duration.ofMillis(20));
+
+        long elapsed = runConcurrently(() -> optimisticRetryExecutor.execute(status -> {
+            Member findMember = memberRepository.findMemberByUsername(USERNAME);
+            findMember.setAge(findMember.getAge() + 1); // 커밋 시 update ... where member_id = ? and version = ?
+            return null;
+        }));
+
+        Member result = memberRepository.findById(member.getId()).get();
+        assertThat(result.getAge()).isEqualTo(THREADS * UPDATES_PER_THREAD);
+        assertThat(result.getVersion()).isEqualTo(THREADS * UPDATES_PER_THREAD);
+
+        System.out.println("optimistic elapsed(ms) = " + elapsed
+                + ", conflicts = " + meterRegistry.counter("optimistic.lock.conflicts").count());
+    }
+
+    @Test
+    void pessimisticLock() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        long elapsed = runConcurrently(() -> tx.executeWithoutResult(status -> {
+            Member findMember = memberRepository.findLockByUsername(USERNAME).get(0); // select ... for update
+            findMember.setAge(findMember.getAge() + 1);
+        }));
+
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(THREADS * UPDATES_PER_THREAD);
+
+        System.out.println("pessimistic elapsed(ms) = " + elapsed);
+    }
+
+    @Test
+    void bulkUpdateConflictsWithStaleEntity() {
+        member.setAge(5000); // 다른 테스트의 회원이 수정되지 않도록 겹치지 않는 나이
+        member = memberRepository.save(member);
+
+        // 먼저 읽어둔 회원을 벌크 수정 후에 커밋하면 벌크 수정을 덮어쓰지 않고 충돌로 실패한다.
+        assertThatThrownBy(() -> commitStaleAfter(() -> memberRepository.bulkAgePlus(5000)))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThatThrownBy(() -> commitStaleAfter(() -> memberRepository.bulkAgePlusInChunks(5000, 10)))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(5002);
+    }
+
+    private void commitStaleAfter(Runnable bulkUpdate) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        TransactionTemplate newTx = new TransactionTemplate(transactionManager);
+        newTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        tx.executeWithoutResult(status -> {
+            Member stale = memberRepository.findById(member.getId()).get();
+            newTx.executeWithoutResult(s -> bulkUpdate.run()); // 다른 트랜잭션에서 벌크 수정 후 커밋
+            stale.setUsername(USERNAME + "-renamed"); // 커밋 시 update ... where version = (읽을 때 버전)
+        });
+    }
+
+    private long runConcurrently(Runnable update) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < UPDATES_PER_THREAD; j++) {
+                        update.run();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(); // 실패한 작업의 예외를 그대로 던진다.
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
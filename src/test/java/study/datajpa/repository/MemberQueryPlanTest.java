@@ -0,0 +1,98 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ReflectionUtils;
+import study.datajpa.entity.Member;
+
+import javax.sql.DataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static study.datajpa.repository.QueryPlanAssertions.assertNoTableScan;
+
+/**
+ * MemberRepository 에 선언된 모든 쿼리 메서드를 실행하고, 실행된 SQL 이 member 테이블을 전체 스캔하지 않는지 확인한다.
+ * 조건 없이 전체를 읽는 메서드는 FULL_SCAN_METHODS 에 이유와 함께 등록한다.
+ */
+@SpringBootTest
+@Transactional // 벌크 수정(bulkAgePlus)도 실행하므로 롤백한다.
+class MemberQueryPlanTest {
+
+    private static final Set<String> FULL_SCAN_METHODS = Set.of(
+            "findUsernameList", "findMemberDto", "findAll", "findMemberFetchJoin", "findMemberEntityGraph", // 전체 목록
+            "findByAge", // @Query 에 age 조건이 없다. (left join team 으로 전체 페이징)
+            "findByNativeProjection"); // 전체 페이징
+
+    // MemberRepositoryCustom 으로 옮긴 Projections 조회
+    private static final List<Method> PROJECTION_METHODS = List.of(
+            ReflectionUtils.findMethod(MemberRepositoryCustom.class, "findProjectionsByUsername", String.class, Class.class),
+            ReflectionUtils.findMethod(MemberRepositoryCustom.class, "findByNativeProjection", Pageable.class));
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired DataSource dataSource;
+
+    @Test
+    void queryMethodsUseIndexes() {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            members.add(new Member("member" + i, i));
+        }
+        memberRepository.saveAll(members);
+        memberRepository.flush();
+
+        List<Method> methods = new ArrayList<>(List.of(MemberRepository.class.getDeclaredMethods()));
+        methods.addAll(PROJECTION_METHODS);
+        for (Method method : methods) {
+            if (FULL_SCAN_METHODS.contains(method.getName())) {
+                continue;
+            }
+            assertNoTableScan(dataSource, "MemberRepository." + method.getName(), () -> invoke(method), "member");
+        }
+    }
+
+    private void invoke(Method method) {
+        Object[] args = new Object[method.getParameterCount()];
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < args.length; i++) {
+            args[i] = sampleArgument(parameterTypes[i]);
+        }
+        try {
+            Object result = method.invoke(memberRepository, args);
+            if (result instanceof CompletableFuture) {
+                ((CompletableFuture<?>) result).join(); // 비동기 메서드는 SQL 이 실행될 때까지 기다린다.
+            }
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException(method.getName() + " 실행 실패", e);
+        }
+    }
+
+    private static Object sampleArgument(Class<?> type) {
+        if (type == String.class) {
+            return "member10";
+        }
+        if (type == int.class || type == Integer.class) {
+            return 10;
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return List.of("member10", "member20");
+        }
+        if (Pageable.class.isAssignableFrom(type)) {
+            return PageRequest.of(0, 10);
+        }
+        if (type == Class.class) {
+            return UsernameOnly.class;
+        }
+        throw new IllegalArgumentException("예시 인자를 만들 수 없는 파라미터 타입: " + type);
+    }
+}
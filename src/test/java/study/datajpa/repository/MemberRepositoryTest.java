@@ -1,24 +1,36 @@
 package study.datajpa.repository;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.CursorPage;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSearchCondition;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static study.datajpa.repository.StatementCountAssertions.assertMaxStatements;
 
 @SpringBootTest
 @Transactional
@@ -168,6 +180,50 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 트랜잭션 밖 -> 조각들을 동시에 조회
+    public void findByNamesLargeList() {
+        List<Member> saved = memberRepository.saveAll(List.of(
+                new Member("inChunk1", 10), new Member("inChunk2", 10), new Member("inChunk3", 10)));
+        try {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < 100_000; i++) {
+                names.add("noSuchMember" + i);
+            }
+            names.add(10, "inChunk1");
+            names.add(50_000, "inChunk2");
+            names.add("inChunk3");
+            names.add("inChunk3"); // 중복
+
+            List<Member> result = memberRepository.findByNames(names);
+
+            assertThat(result).extracting("username").containsExactlyInAnyOrder("inChunk1", "inChunk2", "inChunk3");
+        } finally {
+            memberRepository.deleteAll(saved);
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 비동기 조회는 다른 스레드의 트랜잭션이라 커밋된 데이터만 보인다.
+    public void asyncQueries() throws Exception {
+        Team team = teamRepository.save(new Team("asyncTeam"));
+        Member member = memberRepository.save(new Member("asyncMember", 10, team));
+        try {
+            // when - 두 조회가 동시에 실행된다.
+            CompletableFuture<List<Member>> members = memberRepository.findAsyncByUsername("asyncMember");
+            CompletableFuture<Long> count = memberRepository.countAsyncByTeamName("asyncTeam");
+
+            // then
+            List<Member> result = members.get(5, TimeUnit.SECONDS);
+            assertThat(result).hasSize(1);
+            assertThat(result.get(0).getTeam().getName()).isEqualTo("asyncTeam"); // 엔티티 그래프로 함께 조회
+            assertThat(count.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        } finally {
+            memberRepository.deleteById(member.getId());
+            teamRepository.deleteById(team.getId());
+        }
+    }
+
     @Test
     public void returnType() {
         Member m1 = new Member("AAA", 10);
@@ -228,6 +284,97 @@ class MemberRepositoryTest {
         // 그래서 totalCount 도 모를 뿐더러, totalPages 도 모른다.
     }
 
+    @Test
+    public void pagingWithoutCountQuery() {
+        // given
+        for (int i = 1; i <= 5; i++) {
+            memberRepository.save(new Member("member" + i, 7777));
+        }
+        em.flush();
+        Statistics statistics = em.unwrap(Session.class).getSessionFactory().getStatistics();
+        statistics.clear();
+
+        // when
+        Page<Member> lastPage = memberRepository.findPageByAge(7777, PageRequest.of(1, 3)); // 2건 -> 전체 개수 계산 가능
+        Page<Member> firstPage = memberRepository.findPageByAge(7777, PageRequest.of(0, 3)); // 캐시된 전체 개수 사용
+
+        // then
+        assertThat(lastPage.getContent().size()).isEqualTo(2);
+        assertThat(lastPage.getTotalElements()).isEqualTo(5);
+        assertThat(firstPage.getContent().size()).isEqualTo(3);
+        assertThat(firstPage.getTotalElements()).isEqualTo(5);
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(2); // 내용 조회 2번, count 쿼리 x
+    }
+
+    @Test
+    public void cursorPaging() {
+        // given
+        Member first = memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 10));
+        memberRepository.save(new Member("member3", 10));
+        memberRepository.save(new Member("member4", 10));
+        memberRepository.save(new Member("member5", 10));
+
+        // 방금 저장한 회원들 바로 앞에서부터 읽기 시작한다.
+        String cursor = MemberCursor.encode(first.getId() - 1);
+
+        // when
+        CursorPage<Member> page1 = memberRepository.findMemberPage(cursor, 3);
+        CursorPage<Member> page2 = memberRepository.findMemberPage(page1.getNextCursor(), 3);
+
+        // then
+        assertThat(page1.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(page1.isHasNext()).isTrue();
+
+        assertThat(page2.getContent()).extracting("username").containsExactly("member4", "member5");
+        assertThat(page2.isHasNext()).isFalse(); // 마지막 페이지는 nextCursor 가 없다.
+        assertThat(page2.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void saveAllBatched() {
+        // given
+        long before = memberRepository.count();
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            members.add(new Member("batch" + i, i));
+        }
+
+        // when
+        int savedCount = memberRepository.saveAllBatched(members, 50); // 50, 50, 20 건씩 배치 INSERT
+
+        // then
+        assertThat(savedCount).isEqualTo(120);
+        assertThat(members).allMatch(member -> member.getId() != null);
+        assertThat(em.contains(members.get(0))).isFalse(); // 영속성 컨텍스트는 비워져 있다.
+        assertThat(memberRepository.count()).isEqualTo(before + 120);
+    }
+
+    @Test
+    public void streamMemberDto() {
+        // given
+        Team teamA = new Team("teamA");
+        teamRepository.save(teamA);
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 20));
+
+        em.flush();
+        em.clear();
+
+        long total = memberRepository.count();
+
+        // when
+        long streamed;
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDto(2)) {
+            streamed = stream.count();
+        }
+
+        // then
+        assertThat(streamed).isEqualTo(total);
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isEqualTo(0); // DTO 조회라 영속성 컨텍스트가 비어있다.
+    }
+
     @Test
     public void bulkUpdate() {
 
@@ -260,6 +407,28 @@ class MemberRepositoryTest {
         assertThat(resultCount).isEqualTo(3);
     }
 
+    @Test
+    public void bulkUpdateInChunks() {
+
+        // given
+        Member member1 = memberRepository.save(new Member("member1", 999));
+        Member member2 = memberRepository.save(new Member("member2", 1000));
+        memberRepository.save(new Member("member3", 1001));
+        memberRepository.save(new Member("member4", 1500));
+
+        // when
+        int resultCount = memberRepository.bulkAgePlusInChunks(1000, 2); // 1000살 이상부터 나이에 +1, id 2개 범위씩
+
+        // then
+        assertThat(resultCount).isEqualTo(3);
+
+        // 영속성 컨텍스트가 비워지지 않고, 수정 대상인 회원만 새 값으로 갱신된다.
+        assertThat(em.contains(member1)).isTrue();
+        assertThat(em.contains(member2)).isTrue();
+        assertThat(member1.getAge()).isEqualTo(999);
+        assertThat(member2.getAge()).isEqualTo(1001);
+    }
+
     @Test
     public void findMemberLazy() {
 
@@ -297,6 +466,42 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void batchFetchTeams() {
+
+        // given - 팀 5개, 팀마다 회원 2명
+        List<String> names = new ArrayList<>();
+        List<Long> teamIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Team team = teamRepository.save(new Team("batchTeam" + i));
+            teamIds.add(team.getId());
+            for (int j = 0; j < 2; j++) {
+                String name = "batchMember" + i + "_" + j;
+                memberRepository.save(new Member(name, 10, team));
+                names.add(name);
+            }
+        }
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll(); // 2차 캐시에서 꺼내오지 않도록 비운다.
+
+        // when & then
+        // 회원 조회 1번 + 팀 프록시 초기화 1번 (팀 개수만큼 SELECT 가 나가면 N + 1)
+        List<MemberDto> dtos = assertMaxStatements(em, 2, () -> memberRepository.findByNames(names).stream()
+                .map(MemberDto::new)
+                .collect(Collectors.toList()));
+        assertThat(dtos).extracting("teamName").doesNotContainNull();
+
+        em.clear();
+
+        // 팀 조회 1번 + members 컬렉션 초기화 1번
+        List<String> memberNames = assertMaxStatements(em, 2, () -> teamRepository.findAllById(teamIds).stream()
+                .flatMap(team -> team.getMembers().stream())
+                .map(Member::getUsername)
+                .collect(Collectors.toList()));
+        assertThat(memberNames).hasSize(10);
+    }
+
     @Test
     public void queryHint() {
 
@@ -354,6 +559,91 @@ class MemberRepositoryTest {
         Assertions.assertThat(result.size()).isEqualTo(1);
     }
 
+    @Test
+    public void specificationDtoPaging() {
+        // given
+        Team teamA = new Team("specDtoTeamA");
+        em.persist(teamA);
+        em.persist(new Member("specDto1", 0, teamA));
+        em.persist(new Member("specDto2", 0, teamA));
+        em.persist(new Member("specDto3", 0, teamA));
+        em.persist(new Member("specDto1", 0));
+
+        em.flush();
+        em.clear();
+
+        // when
+        Page<MemberDto> page = memberRepository.findMemberDtos(MemberSpec.teamName("specDtoTeamA"),
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "username")), true);
+        Page<MemberDto> withoutTeam = memberRepository.findMemberDtos(MemberSpec.username("specDto1"),
+                PageRequest.of(0, 10, Sort.by("id")), false);
+        Page<NestedClosedProjections> nested = memberRepository.findProjectionsBy(MemberSpec.username("specDto1"),
+                NestedClosedProjections.class, PageRequest.of(0, 10, Sort.by("id")));
+
+        // then
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting("username").containsExactly("specDto3", "specDto2");
+        assertThat(page.getContent()).extracting("teamName").containsOnly("specDtoTeamA");
+
+        assertThat(withoutTeam.getContent()).extracting("username").containsExactly("specDto1", "specDto1");
+        assertThat(withoutTeam.getContent()).extracting("teamName").containsOnlyNulls();
+
+        assertThat(nested.getContent()).hasSize(2);
+        assertThat(nested.getContent().get(0).getTeam().getName()).isEqualTo("specDtoTeamA");
+        assertThat(nested.getContent().get(1).getTeam()).isNull(); // 팀이 없는 회원 (left join)
+
+        // 엔티티를 조회하지 않았으므로 영속성 컨텍스트가 비어있다.
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    public void searchByCondition() {
+        // given
+        Team teamA = new Team("searchTeamA");
+        em.persist(teamA);
+        em.persist(new Member("searchM1", 0, teamA));
+        em.persist(new Member("searchM2", 0, teamA));
+        em.persist(new Member("searchM1", 0));
+
+        em.flush();
+        em.clear();
+
+        // when - MemberSpec.username("searchM1").and(MemberSpec.teamName("searchTeamA")) 와 같은 조건
+        List<Member> result = memberRepository.search(new MemberSearchCondition("searchM1", "searchTeamA"));
+        Page<Member> page = memberRepository.search(new MemberSearchCondition(null, "searchTeamA"),
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "username")));
+        List<Member> byUsername = memberRepository.search(new MemberSearchCondition("searchM1", null));
+
+        // then
+        assertThat(result).hasSize(1);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting("username").containsExactly("searchM2");
+        assertThat(byUsername).hasSize(2);
+    }
+
+    @Test
+    public void searchCountKeyDoesNotCollide() {
+        // given - 구분자(':')를 이어 붙이면 "key:x" + "y" 와 "key" + "x:y" 가 같은 문자열이 된다.
+        Team teamY = new Team("y");
+        Team teamXY = new Team("x:y");
+        em.persist(teamY);
+        em.persist(teamXY);
+        em.persist(new Member("key:x", 0, teamY));
+        em.persist(new Member("key:x", 0, teamY));
+        em.persist(new Member("key", 0, teamXY));
+
+        em.flush();
+        em.clear();
+
+        // when - 첫 번째 검색의 전체 개수(2)가 캐시된 뒤 두 번째 검색
+        Page<Member> first = memberRepository.search(new MemberSearchCondition("key:x", "y"), PageRequest.of(0, 1));
+        Page<Member> second = memberRepository.search(new MemberSearchCondition("key", "x:y"), PageRequest.of(0, 1));
+
+        // then
+        assertThat(first.getTotalElements()).isEqualTo(2);
+        assertThat(second.getTotalElements()).isEqualTo(1);
+    }
+
     @Test
     public void queryByExample() {
 
@@ -418,6 +708,35 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void dynamicProjections() {
+
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("dynamicProjection", 0, teamA));
+
+        em.flush();
+        em.clear();
+
+        // when
+        List<UsernameOnly> usernames = memberRepository.findProjectionsByUsername("dynamicProjection", UsernameOnly.class);
+        List<NestedClosedProjections> nested = memberRepository.findProjectionsByUsername("dynamicProjection", NestedClosedProjections.class);
+
+        // then
+        assertThat(usernames.get(0).getUsername()).isEqualTo("dynamicProjection");
+        assertThat(nested.get(0).getTeam().getName()).isEqualTo("teamA");
+
+        // 프록시가 아니라 미리 만든 구현 클래스 (ClosedProjection)
+        assertThat(Proxy.isProxyClass(usernames.get(0).getClass())).isFalse();
+        assertThat(Proxy.isProxyClass(nested.get(0).getTeam().getClass())).isFalse();
+        assertThat(nested.get(0).toString()).contains("dynamicProjection", "teamA");
+
+        // DTO 클래스는 생성자로 조회
+        List<UsernameOnlyDto> dtos = memberRepository.findProjectionsByUsername("dynamicProjection", UsernameOnlyDto.class);
+        assertThat(dtos.get(0).getUsername()).isEqualTo("dynamicProjection");
+    }
+
     @Test
     public void nativeQuery() {
 
@@ -442,6 +761,13 @@ class MemberRepositoryTest {
             System.out.println("memberProjection.getUsername() = " + memberProjection.getUsername());
             System.out.println("memberProjection.getTeamName() = " + memberProjection.getTeamName());
         }
+
+        // 최근 저장한 회원부터 - 회원마다 한 행 (팀과 조인)
+        List<MemberProjection> latest = memberRepository.findByNativeProjection(
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id"))).getContent();
+        assertThat(latest).extracting(MemberProjection::getUsername).containsExactly("m2", "m1");
+        assertThat(latest).extracting(MemberProjection::getTeamName).containsOnly("teamA");
+        assertThat(latest.get(0).getId()).isEqualTo(m2.getId());
     }
 
 
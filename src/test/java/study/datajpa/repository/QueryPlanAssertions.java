@@ -0,0 +1,101 @@
+package study.datajpa.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * 작업 하나가 실행한 SQL 을 모두 모아서 H2 EXPLAIN 으로 실행 계획을 확인한다.
+ * 큰 테이블(largeTables)을 전체 스캔하면 테스트를 실패시킨다.
+ *
+ * - PUBLIC.MEMBER.tableScan : 인덱스 없이 테이블 전체를 읽는다.
+ * - PUBLIC.IDX_...: AGE > ?1 : 인덱스를 쓰더라도 첫 번째 컬럼에 조건이 없으면 인덱스 전체를 읽는다.
+ *
+ * SQL 은 H2 의 쿼리 통계(SET QUERY_STATISTICS)로 수집한다. DB 전체 설정이므로 동시에 도는 테스트가 없어야 한다.
+ * H2 의 SET 명령은 현재 트랜잭션을 커밋하므로, 테스트 트랜잭션과 다른 별도 커넥션에서 실행한다.
+ */
+public final class QueryPlanAssertions {
+
+    // /* PUBLIC.MEMBER.tableScan */ 또는 /* PUBLIC.IDX_MEMBER_AGE: AGE >= ?1 */
+    private static final Pattern SCAN = Pattern.compile("/\\* PUBLIC\\.(\\w+)(\\.tableScan|: ([^*]*))?\\s*\\*/");
+
+    private QueryPlanAssertions() {
+    }
+
+    public static void assertNoTableScan(DataSource dataSource, String description, Runnable work, String... largeTables) {
+        // DataSourceUtils 를 거치지 않고 풀에서 직접 꺼내야 트랜잭션에 묶인 커넥션과 다른 커넥션을 받는다.
+        try (Connection connection = dataSource.getConnection()) {
+            assertNoTableScan(new JdbcTemplate(new SingleConnectionDataSource(connection, true)), description, work, largeTables);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void assertNoTableScan(JdbcTemplate jdbcTemplate, String description, Runnable work, String... largeTables) {
+        List<String> statements = captureStatements(jdbcTemplate, work);
+        assertThat(statements).as("%s 가 실행한 SQL", description).isNotEmpty();
+
+        for (String sql : statements) {
+            String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+
+            Matcher matcher = SCAN.matcher(plan);
+            while (matcher.find()) {
+                String name = matcher.group(1);
+                if (".tableScan".equals(matcher.group(2))) {
+                    failIfLarge(name, largeTables, description + " 가 " + name + " 테이블을 전체 스캔한다.", sql, plan);
+                    continue;
+                }
+
+                // 인덱스 - 첫 번째 컬럼에 조건이 걸려야 범위 탐색이 된다.
+                Map<String, Object> leading = jdbcTemplate.queryForMap("select table_name, column_name" +
+                        " from information_schema.index_columns where index_name = ? and ordinal_position = 1", name);
+                String condition = matcher.group(3);
+                String leadingColumn = (String) leading.get("COLUMN_NAME");
+                if (condition == null || !Pattern.compile("\\b" + leadingColumn + "\\b").matcher(condition).find()) {
+                    failIfLarge((String) leading.get("TABLE_NAME"), largeTables,
+                            description + " 가 인덱스 " + name + " 전체를 읽는다. (첫 번째 컬럼 " + leadingColumn + " 조건 없음)", sql, plan);
+                }
+            }
+        }
+    }
+
+    private static void failIfLarge(String table, String[] largeTables, String message, String sql, String plan) {
+        for (String largeTable : largeTables) {
+            if (largeTable.equalsIgnoreCase(table)) {
+                fail("%s%n%s%n%s", message, sql, plan);
+            }
+        }
+    }
+
+    private static List<String> captureStatements(JdbcTemplate jdbcTemplate, Runnable work) {
+        jdbcTemplate.execute("set query_statistics false"); // 끄면 이전 통계가 지워진다.
+        jdbcTemplate.execute("set query_statistics true");
+        try {
+            work.run();
+
+            List<String> statements = jdbcTemplate.queryForList(
+                    "select sql_statement from information_schema.query_statistics", String.class);
+            statements.removeIf(sql -> !isExplainable(sql));
+            return statements;
+        } finally {
+            jdbcTemplate.execute("set query_statistics false");
+        }
+    }
+
+    private static boolean isExplainable(String sql) {
+        String lower = sql.trim().toLowerCase(Locale.ROOT);
+        return (lower.startsWith("select") || lower.startsWith("update") || lower.startsWith("delete"))
+                && !lower.contains("query_statistics");
+    }
+}
@@ -0,0 +1,32 @@
+package study.datajpa.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManager;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * N + 1 감지기 - 작업 하나(리포지토리 호출 + 결과 탐색)가 실행한 SQL 개수가 max 를 넘으면 테스트를 실패시킨다.
+ * 하이버네이트 통계(hibernate.generate_statistics)의 prepareStatement 횟수를 사용한다.
+ */
+public final class StatementCountAssertions {
+
+    private StatementCountAssertions() {
+    }
+
+    public static <T> T assertMaxStatements(EntityManager em, int max, Supplier<T> work) {
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+
+        T result = work.get();
+
+        long executed = statistics.getPrepareStatementCount() - before;
+        assertThat(executed)
+                .as("실행된 SQL 개수 (N + 1 의심)")
+                .isLessThanOrEqualTo(max);
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+package study.datajpa.repository;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.datajpa.repository.StatementCountAssertions.assertMaxStatements;
+
+@SpringBootTest
+@Transactional
+@Rollback(false)
+class TeamRepositoryTest {
+
+    @Autowired TeamRepository teamRepository;
+    @Autowired MemberRepository memberRepository;
+    @PersistenceContext EntityManager em;
+
+    @Test
+    public void findAllWithMembers() {
+
+        // given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+        Team teamC = teamRepository.save(new Team("teamC"));
+
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 20, teamB));
+        memberRepository.save(new Member("member3", 30, teamC));
+        memberRepository.save(new Member("member4", 40, teamC));
+
+        em.flush();
+        em.clear();
+
+        // when - 가장 최근에 만든 팀부터 2개 (id 페이징 1번 + 팀/회원 IN 조회 1번 + count 1번)
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id"));
+        Page<Team> page = assertMaxStatements(em, 3, () -> teamRepository.findAllWithMembers(pageRequest));
+
+        // then
+        assertThat(page.getContent()).extracting("name").containsExactly("teamC", "teamB");
+        assertThat(page.getContent()).allMatch(team -> Hibernate.isInitialized(team.getMembers()));
+        assertThat(page.getContent().get(0).getMembers()).hasSize(2);
+        assertThat(page.getContent().get(1).getMembers()).hasSize(1);
+        assertThat(page.hasNext()).isTrue();
+    }
+}